@@ -0,0 +1,73 @@
+package com.example.searchcomparison.benchmark;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/** Minimal {@code --key=value} argument parsing shared by the benchmark entry points. */
+final class BenchmarkArgs {
+
+    private final Map<String, String> values = new HashMap<>();
+
+    BenchmarkArgs(String[] args) {
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Expected --key=value but got: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                values.put(arg.substring(2), "true");
+            } else {
+                values.put(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+        }
+    }
+
+    String get(String key, String defaultValue) {
+        return values.getOrDefault(key, defaultValue);
+    }
+
+    long getLong(String key, long defaultValue) {
+        String value = values.get(key);
+        return value == null ? defaultValue : parseCount(value);
+    }
+
+    int getInt(String key, int defaultValue) {
+        return (int) getLong(key, defaultValue);
+    }
+
+    boolean getBoolean(String key, boolean defaultValue) {
+        String value = values.get(key);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    /** Accepts {@code 30s}, {@code 2m} or a plain number of seconds. */
+    Duration getDuration(String key, Duration defaultValue) {
+        String value = values.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(value));
+    }
+
+    /** Accepts {@code 10000}, {@code 10k} or {@code 10M}. */
+    private static long parseCount(String value) {
+        char unit = Character.toLowerCase(value.charAt(value.length() - 1));
+        if (unit == 'k') {
+            return Long.parseLong(value.substring(0, value.length() - 1)) * 1_000L;
+        }
+        if (unit == 'm') {
+            return Long.parseLong(value.substring(0, value.length() - 1)) * 1_000_000L;
+        }
+        return Long.parseLong(value);
+    }
+}
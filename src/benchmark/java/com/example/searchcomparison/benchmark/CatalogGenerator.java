@@ -0,0 +1,247 @@
+package com.example.searchcomparison.benchmark;
+
+import com.example.searchcomparison.model.Product;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Deterministic synthetic product catalog.
+ *
+ * <p>Product {@code i} is derived from {@code (seed, i)} alone, so the same seed always
+ * yields the same catalog whatever the size, and any product can be regenerated on its
+ * own (the query mix uses that to pick names that really exist). Categories follow a
+ * Zipf-like skew so a few of them hold most of the rows, names are drawn from a
+ * per-category vocabulary with many repeats, and description words are Zipf-distributed
+ * like natural text.
+ *
+ * <p>Run it directly to fill a database, e.g. the MySQL the application uses:
+ * <pre>
+ * mvn -Pbenchmark compile exec:exec -Dbenchmark.main=com.example.searchcomparison.benchmark.CatalogGenerator \
+ *     -Dbenchmark.args="--count=1M --jdbc-url=jdbc:mysql://localhost:3306/search --user=root --password=secret"
+ * </pre>
+ */
+public class CatalogGenerator {
+
+    private static final Logger log = Logger.getLogger(CatalogGenerator.class.getName());
+
+    static final List<String> CATEGORIES = List.of(
+        "Electronics", "Home & Kitchen", "Clothing", "Books", "Sports", "Toys",
+        "Beauty", "Garden", "Automotive", "Office", "Pet Supplies", "Music");
+
+    private static final String[][] NOUNS = {
+        {"Headphones", "Speaker", "Monitor", "Keyboard", "Mouse", "Charger", "Camera", "Router", "Tablet", "Laptop"},
+        {"Blender", "Kettle", "Toaster", "Skillet", "Knife Set", "Coffee Maker", "Mixing Bowl", "Cutting Board"},
+        {"Jacket", "Sweater", "T-Shirt", "Jeans", "Sneakers", "Scarf", "Hoodie", "Raincoat", "Socks"},
+        {"Cookbook", "Novel", "Atlas", "Biography", "Notebook", "Field Guide", "Anthology"},
+        {"Yoga Mat", "Dumbbell", "Water Bottle", "Tennis Racket", "Bike Helmet", "Running Belt"},
+        {"Puzzle", "Building Blocks", "Plush Bear", "Board Game", "Kite", "Train Set"},
+        {"Shampoo", "Face Cream", "Lip Balm", "Hair Dryer", "Perfume", "Nail Kit"},
+        {"Shovel", "Planter", "Hose", "Pruning Shears", "Bird Feeder", "Seed Kit"},
+        {"Floor Mats", "Dash Cam", "Tire Gauge", "Car Charger", "Wiper Blades"},
+        {"Desk Lamp", "Stapler", "Office Chair", "Whiteboard", "Label Maker", "Paper Shredder"},
+        {"Dog Bed", "Cat Tree", "Leash", "Pet Bowl", "Aquarium Filter"},
+        {"Guitar Strings", "Ukulele", "Drum Pads", "Microphone", "Metronome"}
+    };
+
+    private static final String[] ADJECTIVES = {
+        "Wireless", "Portable", "Compact", "Premium", "Classic", "Ergonomic", "Smart", "Deluxe",
+        "Lightweight", "Heavy Duty", "Vintage", "Modern", "Eco", "Pro", "Ultra", "Mini"
+    };
+
+    private static final String[] MATERIALS = {
+        "Steel", "Bamboo", "Leather", "Cotton", "Ceramic", "Aluminum", "Wooden", "Glass", "Silicone", "Wool"
+    };
+
+    private static final String[] WORDS = (
+        "the quality design durable comfortable everyday use perfect gift easy clean great value "
+        + "high performance long lasting battery life water resistant soft touch premium finish "
+        + "fits most modern homes travel friendly includes warranty adjustable size colors available "
+        + "made from sustainable materials tested safe family kids adults outdoor indoor season "
+        + "fast setup quiet operation energy efficient classic style compact storage lightweight frame "
+        + "professional grade reliable support customer favorite bestseller limited edition new "
+        + "improved version upgraded motor stainless reinforced stitching breathable fabric grip handle "
+        + "portable case charging cable hand wash dishwasher machine washable non slip ergonomic shape"
+    ).split(" ");
+
+    private static final double CATEGORY_SKEW = 1.1;
+    private static final double WORD_SKEW = 1.0;
+
+    private final long seed;
+    private final double[] categoryCdf = zipfCdf(CATEGORIES.size(), CATEGORY_SKEW);
+    private final double[] wordCdf = zipfCdf(WORDS.length, WORD_SKEW);
+
+    public CatalogGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /** The product with id {@code id} (1-based) in this catalog. */
+    public Product product(long id) {
+        SplittableRandom random = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + id);
+        int category = sample(categoryCdf, random);
+        String[] nouns = NOUNS[category];
+
+        StringBuilder name = new StringBuilder();
+        if (random.nextInt(4) != 0) {
+            name.append(ADJECTIVES[random.nextInt(ADJECTIVES.length)]).append(' ');
+        }
+        if (random.nextInt(3) == 0) {
+            name.append(MATERIALS[random.nextInt(MATERIALS.length)]).append(' ');
+        }
+        name.append(nouns[random.nextInt(nouns.length)]);
+        // Some products carry a model number, which keeps names from repeating too often
+        if (random.nextInt(5) == 0) {
+            name.append(' ').append((char) ('A' + random.nextInt(26))).append(100 + random.nextInt(900));
+        }
+
+        int wordCount = 12 + random.nextInt(40);
+        StringBuilder description = new StringBuilder(wordCount * 8);
+        for (int i = 0; i < wordCount; i++) {
+            if (i > 0) {
+                description.append(' ');
+            }
+            description.append(WORDS[sample(wordCdf, random)]);
+        }
+
+        // Log-normal prices, centred differently per category
+        double median = 12.0 + category * 7.5;
+        double price = Math.round(median * Math.exp(random.nextGaussian() * 0.6) * 100.0) / 100.0;
+
+        Product product = new Product(id, name.toString(), description.toString(), CATEGORIES.get(category), price);
+        product.setNameKeyword(product.getName());
+        return product;
+    }
+
+    /** Generates products {@code 1..count} in id order without holding them in memory. */
+    public void forEach(long count, Consumer<Product> consumer) {
+        for (long id = 1; id <= count; id++) {
+            consumer.accept(product(id));
+        }
+    }
+
+    /**
+     * Creates the {@code products} table and the indexes the JPA entity declares. MySQL
+     * has no {@code CREATE INDEX IF NOT EXISTS}, so existing indexes are looked up first.
+     */
+    public static void createSchema(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS products ("
+                + "id BIGINT PRIMARY KEY, name VARCHAR(255), name_keyword VARCHAR(255), "
+                + "description VARCHAR(2048), category VARCHAR(255), price DOUBLE)");
+            Set<String> existing = indexNames(connection);
+            createIndex(statement, existing, "idx_products_name", "name");
+            createIndex(statement, existing, "idx_products_category_price", "category, price");
+            createIndex(statement, existing, "idx_products_price", "price");
+        }
+    }
+
+    private static void createIndex(Statement statement, Set<String> existing, String name, String columns)
+            throws SQLException {
+        if (!existing.contains(name)) {
+            statement.execute("CREATE INDEX " + name + " ON products (" + columns + ")");
+        }
+    }
+
+    private static Set<String> indexNames(Connection connection) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        String table = metaData.storesUpperCaseIdentifiers() ? "PRODUCTS" : "products";
+        Set<String> names = new HashSet<>();
+        try (ResultSet indexes = metaData.getIndexInfo(connection.getCatalog(), null, table, false, true)) {
+            while (indexes.next()) {
+                String name = indexes.getString("INDEX_NAME");
+                if (name != null) {
+                    names.add(name.toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return names;
+    }
+
+    /** Inserts products {@code 1..count} with JDBC batches of {@code batchSize} rows. */
+    public long insert(Connection connection, long count, int batchSize) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        long started = System.nanoTime();
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO products (id, name, name_keyword, description, category, price) VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (long id = 1; id <= count; id++) {
+                Product product = product(id);
+                insert.setLong(1, product.getId());
+                insert.setString(2, product.getName());
+                insert.setString(3, product.getNameKeyword());
+                insert.setString(4, product.getDescription());
+                insert.setString(5, product.getCategory());
+                insert.setDouble(6, product.getPrice());
+                insert.addBatch();
+                if (id % batchSize == 0 || id == count) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+                if (id % 1_000_000 == 0) {
+                    log.info("⏳ Inserted " + id + " of " + count + " products");
+                }
+            }
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+        log.info("✅ Inserted " + count + " products in " + (System.nanoTime() - started) / 1_000_000 + " ms");
+        return count;
+    }
+
+    private static double[] zipfCdf(int size, double exponent) {
+        double[] cdf = new double[size];
+        double total = 0;
+        for (int rank = 1; rank <= size; rank++) {
+            total += 1.0 / Math.pow(rank, exponent);
+            cdf[rank - 1] = total;
+        }
+        for (int i = 0; i < size; i++) {
+            cdf[i] /= total;
+        }
+        return cdf;
+    }
+
+    private static int sample(double[] cdf, SplittableRandom random) {
+        double point = random.nextDouble();
+        int low = 0;
+        int high = cdf.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cdf[mid] < point) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public static void main(String[] args) throws SQLException {
+        BenchmarkArgs options = new BenchmarkArgs(args);
+        long count = options.getLong("count", 100_000);
+        if (count < 1) {
+            throw new IllegalArgumentException("--count must be positive");
+        }
+        CatalogGenerator generator = new CatalogGenerator(options.getLong("seed", 42));
+        String url = options.get("jdbc-url", "jdbc:h2:file:./target/benchmark/catalog;MODE=MySQL");
+        try (Connection connection = DriverManager.getConnection(url,
+                options.get("user", "sa"), options.get("password", ""))) {
+            if (options.getBoolean("create-schema", url.startsWith("jdbc:h2:"))) {
+                createSchema(connection);
+            }
+            generator.insert(connection, count, options.getInt("batch", 1000));
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.searchcomparison.benchmark;
+
+import com.example.searchcomparison.model.Product;
+import com.example.searchcomparison.model.ProductSource;
+import com.example.searchcomparison.model.ProductView;
+import com.example.searchcomparison.service.ProductHitMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.SearchHitsImpl;
+import org.springframework.data.elasticsearch.core.TotalHitsRelation;
+import org.springframework.data.elasticsearch.core.convert.MappingElasticsearchConverter;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.mapping.SimpleElasticsearchMappingContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the Elasticsearch leg after the response has arrived: converting each hit's
+ * {@code _source} and mapping the hits onto the result page with {@link ProductHitMapper},
+ * per page of hits. The {@code entity} benchmarks read full {@link Product}s; the
+ * {@code lean} ones read the filtered {@link ProductSource} into {@link ProductView}s.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HitMappingBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int hitsPerPage;
+
+    private final ProductHitMapper hitMapper = new ProductHitMapper();
+    private MappingElasticsearchConverter converter;
+    private List<Document> documents;
+    private List<Document> leanDocuments;
+    private SearchHits<Product> searchHits;
+    private SearchHits<ProductSource> leanSearchHits;
+
+    @Setup
+    public void setUp() {
+        converter = new MappingElasticsearchConverter(new SimpleElasticsearchMappingContext());
+        converter.afterPropertiesSet();
+
+        CatalogGenerator catalog = new CatalogGenerator(42);
+        documents = new ArrayList<>(hitsPerPage);
+        leanDocuments = new ArrayList<>(hitsPerPage);
+        for (long id = 1; id <= hitsPerPage; id++) {
+            documents.add(toDocument(catalog.product(id), false));
+            leanDocuments.add(toDocument(catalog.product(id), true));
+        }
+        searchHits = toSearchHits(documents, Product.class);
+        leanSearchHits = toSearchHits(leanDocuments, ProductSource.class);
+    }
+
+    @Benchmark
+    public List<Product> entityMapHits() {
+        return hitMapper.toProducts(searchHits);
+    }
+
+    @Benchmark
+    public List<Product> entityConvertAndMapHits() {
+        return hitMapper.toProducts(toSearchHits(documents, Product.class));
+    }
+
+    @Benchmark
+    public List<ProductView> leanMapHits() {
+        return hitMapper.toViews(leanSearchHits);
+    }
+
+    @Benchmark
+    public List<ProductView> leanConvertAndMapHits() {
+        return hitMapper.toViews(toSearchHits(leanDocuments, ProductSource.class));
+    }
+
+    private <T> SearchHits<T> toSearchHits(List<Document> source, Class<T> type) {
+        List<SearchHit<T>> hits = new ArrayList<>(source.size());
+        for (Document document : source) {
+            T content = converter.read(type, document);
+            hits.add(new SearchHit<>("products", document.getId(), null, 1.0f, null,
+                Collections.emptyMap(), Collections.emptyMap(), null, null, Collections.emptyList(), content));
+        }
+        return new SearchHitsImpl<>(hits.size(), TotalHitsRelation.EQUAL_TO, 1.0f, null, null, hits, null, null);
+    }
+
+    /** The {@code _source} Elasticsearch returns, either complete or filtered to the displayed fields. */
+    private static Document toDocument(Product product, boolean filtered) {
+        Map<String, Object> source = new LinkedHashMap<>();
+        if (!filtered) {
+            source.put("id", String.valueOf(product.getId()));
+            source.put("nameKeyword", product.getNameKeyword());
+        }
+        source.put("name", product.getName());
+        source.put("description", product.getDescription());
+        source.put("category", product.getCategory());
+        source.put("price", product.getPrice());
+        Document document = Document.from(source);
+        document.setId(String.valueOf(product.getId()));
+        return document;
+    }
+}
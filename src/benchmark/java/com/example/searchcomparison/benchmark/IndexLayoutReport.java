@@ -0,0 +1,247 @@
+package com.example.searchcomparison.benchmark;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch.indices.IndexSegmentSort;
+import co.elastic.clients.elasticsearch.indices.IndexSettings;
+import co.elastic.clients.elasticsearch.indices.stats.IndexStats;
+import com.example.searchcomparison.model.Product;
+import com.example.searchcomparison.model.ProductSearchRequest;
+import com.example.searchcomparison.service.ProductQueryBuilder;
+import org.HdrHistogram.Histogram;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.client.ClientConfiguration;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchClients;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.index.Settings;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Reports what the products index layout costs: store size, bytes per document,
+ * segments, shards and index sort, plus single-threaded p50/p99 latency of a
+ * {@link QueryMix} run against each index.
+ *
+ * <p>By default it loads the same generated catalog into two indices, one with the
+ * layout before the mapping cleanup (a plain {@code name.keyword} with doc values, a
+ * top-level {@code nameKeyword} keyword, an indexed {@code description}, no index sort)
+ * and one with the current {@link Product}
+ * mapping, and force-merges both to one segment so their sizes compare. With
+ * {@code --indices=products_v3,products_v4} it measures existing indices as they are,
+ * for example the live version before and after {@code POST /admin/index/rebuild}.
+ */
+public class IndexLayoutReport {
+
+    private static final Logger log = Logger.getLogger(IndexLayoutReport.class.getName());
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.SECONDS.toNanos(60);
+    private static final int TRACK_TOTAL_HITS_UP_TO = 10_000;
+    private static final String BEFORE_INDEX = "products_layout_before";
+    private static final String AFTER_INDEX = "products_layout_after";
+    private static final String NAME_KEYWORD = "nameKeyword";
+
+    private final BenchmarkArgs options;
+    private final CatalogGenerator catalog;
+    private final long catalogSize;
+    private final List<ProductSearchRequest> queries;
+
+    IndexLayoutReport(BenchmarkArgs options) {
+        this.options = options;
+        this.catalog = new CatalogGenerator(options.getLong("seed", 42));
+        this.catalogSize = options.getLong("products", 100_000);
+        this.queries = QueryMix.generate(catalog, catalogSize, options.getInt("queries", 2_000),
+            options.getLong("query-seed", 7));
+    }
+
+    public static void main(String[] args) throws Exception {
+        IndexLayoutReport report = new IndexLayoutReport(new BenchmarkArgs(args));
+        ElasticsearchClient client = report.connect();
+        try {
+            report.run(client, new ElasticsearchTemplate(client));
+        } finally {
+            client._transport().close();
+        }
+    }
+
+    private ElasticsearchClient connect() {
+        ClientConfiguration.MaybeSecureClientConfigurationBuilder builder = ClientConfiguration.builder()
+            .connectedTo(options.get("es-host", "localhost:9200"));
+        ClientConfiguration.TerminalClientConfigurationBuilder configuration = options.getBoolean("es-ssl", false)
+            ? builder.usingSsl() : builder;
+        if (options.get("es-user", null) != null) {
+            configuration.withBasicAuth(options.get("es-user", null), options.get("es-password", ""));
+        }
+        return ElasticsearchClients.createImperative(configuration.build());
+    }
+
+    private void run(ElasticsearchClient client, ElasticsearchTemplate template) throws IOException {
+        List<String> indices = new ArrayList<>();
+        String existing = options.get("indices", null);
+        if (existing != null) {
+            for (String index : existing.split(",")) {
+                indices.add(index.trim());
+            }
+        } else {
+            IndexOperations before = template.indexOps(IndexCoordinates.of(BEFORE_INDEX));
+            load(client, template, before, previousSettings(before), previousMapping(before), true);
+            IndexOperations after = template.indexOps(IndexCoordinates.of(AFTER_INDEX));
+            load(client, template, after, after.createSettings(Product.class), after.createMapping(Product.class), false);
+            indices.add(BEFORE_INDEX);
+            indices.add(AFTER_INDEX);
+        }
+
+        List<Row> rows = new ArrayList<>();
+        for (String index : indices) {
+            rows.add(measure(client, template, index));
+        }
+        print(rows);
+    }
+
+    /** The current settings without the index sort. */
+    private static Settings previousSettings(IndexOperations indexOps) {
+        Settings settings = indexOps.createSettings(Product.class).flatten();
+        settings.keySet().removeIf(key -> key.startsWith("index.sort."));
+        return settings;
+    }
+
+    /**
+     * The current mapping with the default keyword subfield, the separate
+     * {@code nameKeyword} field and a searchable description.
+     */
+    private static Document previousMapping(IndexOperations indexOps) {
+        Document mapping = indexOps.createMapping(Product.class);
+        Map<String, Object> properties = child(mapping, "properties");
+        properties.put(NAME_KEYWORD, new LinkedHashMap<>(Map.of("type", "keyword")));
+        Map<String, Object> keyword = child(child(child(properties, "name"), "fields"), "keyword");
+        keyword.remove("normalizer");
+        keyword.remove("doc_values");
+        Map<String, Object> description = child(properties, "description");
+        description.remove("index");
+        description.put("analyzer", "english");
+        return mapping;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> child(Map<String, Object> parent, String key) {
+        return (Map<String, Object>) parent.get(key);
+    }
+
+    /**
+     * Loads the catalog into a new index. {@code withNameKeyword} also writes the
+     * {@code nameKeyword} field, which {@link Product} no longer sends to Elasticsearch.
+     */
+    private void load(ElasticsearchClient client, ElasticsearchTemplate template, IndexOperations indexOps,
+                      Settings settings, Document mapping, boolean withNameKeyword) throws IOException {
+        if (indexOps.exists()) {
+            indexOps.delete();
+        }
+        Settings flat = settings.flatten();
+        flat.put("index.number_of_shards", options.getInt("shards", 1));
+        flat.put("index.number_of_replicas", 0);
+        flat.put("index.refresh_interval", "-1");
+        indexOps.create(flat, mapping);
+
+        IndexCoordinates index = indexOps.getIndexCoordinates();
+        long started = System.nanoTime();
+        List<IndexQuery> batch = new ArrayList<>(1000);
+        catalog.forEach(catalogSize, product -> {
+            IndexQueryBuilder query = new IndexQueryBuilder().withId(String.valueOf(product.getId()));
+            if (withNameKeyword) {
+                Document source = template.getElasticsearchConverter().mapObject(product);
+                source.put(NAME_KEYWORD, product.getNameKeyword());
+                query.withSource(source.toJson());
+            } else {
+                query.withObject(product);
+            }
+            batch.add(query.build());
+            if (batch.size() == 1000) {
+                template.bulkIndex(batch, index);
+                batch.clear();
+            }
+        });
+        if (!batch.isEmpty()) {
+            template.bulkIndex(batch, index);
+        }
+        indexOps.refresh();
+        client.indices().forcemerge(f -> f.index(index.getIndexName()).maxNumSegments(1L));
+        indexOps.refresh();
+        log.info("✅ Loaded " + catalogSize + " products into " + index.getIndexName() + " in "
+            + (System.nanoTime() - started) / 1_000_000 + " ms");
+    }
+
+    private Row measure(ElasticsearchClient client, ElasticsearchTemplate template, String index) throws IOException {
+        IndexStats primaries = client.indices()
+            .stats(s -> s.index(index).metric("docs", "store", "segments"))
+            .indices().get(index).primaries();
+        IndexSettings settings = client.indices().getSettings(g -> g.index(index)).result().get(index).settings();
+        IndexSettings indexSettings = settings.index() != null ? settings.index() : settings;
+        IndexSegmentSort sort = indexSettings.sort();
+
+        ProductQueryBuilder queryBuilder = new ProductQueryBuilder();
+        IndexCoordinates coordinates = IndexCoordinates.of(index);
+        Histogram histogram = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+        long errors = 0;
+        boolean failureLogged = false;
+        // First pass warms the caches and is not recorded. Failed queries are counted, not timed.
+        for (int pass = 0; pass < 2; pass++) {
+            for (ProductSearchRequest request : queries) {
+                long started = System.nanoTime();
+                try {
+                    template.search(queryBuilder.build(request)
+                        .withPageable(PageRequest.of(request.page(), request.size()))
+                        .withTrackTotalHitsUpTo(TRACK_TOTAL_HITS_UP_TO)
+                        .build(), Product.class, coordinates);
+                } catch (RuntimeException e) {
+                    if (!failureLogged) {
+                        log.warning("⚠️ First failed query on " + index + " " + request + ": " + e);
+                        failureLogged = true;
+                    }
+                    if (pass == 1) {
+                        errors++;
+                    }
+                    continue;
+                }
+                if (pass == 1) {
+                    histogram.recordValue(Math.min(System.nanoTime() - started, HIGHEST_TRACKABLE_NANOS));
+                }
+            }
+        }
+
+        long documents = primaries.docs().count();
+        long storeBytes = primaries.store().sizeInBytes();
+        return new Row(index, documents, storeBytes, documents > 0 ? storeBytes / documents : 0,
+            primaries.segments().count(), indexSettings.numberOfShards(),
+            sort != null && !sort.field().isEmpty() ? String.join("+", sort.field()) : "-",
+            histogram, errors);
+    }
+
+    private void print(List<Row> rows) {
+        System.out.println();
+        System.out.printf("%d distinct queries, one thread, primaries only%n", queries.size());
+        System.out.printf("%-26s %10s %10s %9s %8s %6s %-16s %8s %8s %7s%n",
+            "index", "docs", "store MB", "bytes/doc", "segments", "shards", "sort", "p50 ms", "p99 ms", "errors");
+        for (Row row : rows) {
+            System.out.printf("%-26s %10d %10.1f %9d %8d %6s %-16s %8.2f %8.2f %7d%n",
+                row.index(), row.documents(), row.storeBytes() / (1024.0 * 1024.0), row.bytesPerDocument(),
+                row.segments(), row.shards(), row.sort(), row.percentileMillis(50), row.percentileMillis(99),
+                row.errors());
+        }
+    }
+
+    private record Row(String index, long documents, long storeBytes, long bytesPerDocument, int segments,
+                       String shards, String sort, Histogram histogram, long errors) {
+
+        double percentileMillis(double percentile) {
+            return histogram.getValueAtPercentile(percentile) / 1e6;
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package com.example.searchcomparison.benchmark;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import com.example.searchcomparison.model.Product;
+import com.example.searchcomparison.model.ProductSearchRequest;
+import com.example.searchcomparison.service.ProductHitMapper;
+import com.example.searchcomparison.repository.ProductRepository;
+import com.example.searchcomparison.service.ProductQueryBuilder;
+import com.example.searchcomparison.service.ReadMode;
+import com.example.searchcomparison.service.SqlProductSearch;
+import com.example.searchcomparison.service.SqlSearchMode;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.client.ClientConfiguration;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchClients;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Replays a {@link QueryMix} against the SQL and Elasticsearch backends and reports
+ * throughput and p50/p99/p99.9 latency for each.
+ *
+ * <p>By default the SQL side is an in-memory H2 database in MySQL mode filled from the
+ * {@link CatalogGenerator}, and the Elasticsearch side is a local node (e.g. the
+ * official Docker image on {@code localhost:9200}) that gets a dedicated benchmark
+ * index. Point {@code --jdbc-url} at a real MySQL with {@code --load-sql=false} to
+ * measure an existing catalog. A backend that is not reachable is skipped.
+ *
+ * <p>The SQL side runs the application's own {@link SqlProductSearch} on the
+ * {@link ProductRepository}, in a JPA-only Spring context, for the selected
+ * {@code --sql-mode} and {@code --read-mode}, each search in a read-only transaction as
+ * in the application. The Elasticsearch queries come from the application's own
+ * {@link ProductQueryBuilder} and {@link ProductHitMapper}.
+ * Each worker is a closed loop, so the numbers describe service time at the given
+ * concurrency. Backends run one after the other and never compete for the CPU.
+ *
+ * <p>Results can be appended to a CSV file with {@code --report=path} to compare runs.
+ */
+public class LoadDriver {
+
+    private static final Logger log = Logger.getLogger(LoadDriver.class.getName());
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.SECONDS.toNanos(60);
+    private static final int TRACK_TOTAL_HITS_UP_TO = 10_000;
+
+    private final BenchmarkArgs options;
+    private final CatalogGenerator catalog;
+    private final long catalogSize;
+    private final List<ProductSearchRequest> queries;
+    private final int threads;
+    private final Duration warmup;
+    private final Duration duration;
+
+    LoadDriver(BenchmarkArgs options) {
+        this.options = options;
+        this.catalog = new CatalogGenerator(options.getLong("seed", 42));
+        this.catalogSize = options.getLong("products", 100_000);
+        this.queries = QueryMix.generate(catalog, catalogSize, options.getInt("queries", 10_000),
+            options.getLong("query-seed", 7));
+        this.threads = options.getInt("threads", 8);
+        this.warmup = options.getDuration("warmup", Duration.ofSeconds(10));
+        this.duration = options.getDuration("duration", Duration.ofSeconds(30));
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadDriver driver = new LoadDriver(new BenchmarkArgs(args));
+        List<Result> results = new ArrayList<>();
+        for (String backend : driver.options.get("backends", "sql,elasticsearch").split(",")) {
+            Result result = switch (backend.trim()) {
+                case "sql" -> driver.runSql();
+                case "elasticsearch" -> driver.runElasticsearch();
+                default -> throw new IllegalArgumentException("Unknown backend: " + backend);
+            };
+            if (result != null) {
+                results.add(result);
+            }
+        }
+        driver.report(results);
+    }
+
+    private Result runSql() throws SQLException {
+        String url = options.get("jdbc-url", "jdbc:h2:mem:benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        String user = options.get("jdbc-user", "sa");
+        String password = options.get("jdbc-password", "");
+        SqlSearchMode mode = SqlSearchMode.valueOf(options.get("sql-mode", "legacy").toUpperCase(Locale.ROOT));
+        ReadMode readMode = ReadMode.valueOf(options.get("read-mode", "lean").toUpperCase(Locale.ROOT));
+
+        try (Connection connection = DriverManager.getConnection(url, user, password)) {
+            if (options.getBoolean("load-sql", true)) {
+                CatalogGenerator.createSchema(connection);
+                catalog.insert(connection, catalogSize, 1000);
+            }
+        }
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(SqlContext.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .run("--spring.datasource.url=" + url,
+                    "--spring.datasource.username=" + user,
+                    "--spring.datasource.password=" + password,
+                    "--spring.datasource.hikari.maximum-pool-size=" + threads,
+                    "--spring.jpa.hibernate.ddl-auto=none")) {
+            SqlProductSearch search = new SqlProductSearch(context.getBean(ProductRepository.class), mode, readMode);
+            TransactionTemplate transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+            transaction.setReadOnly(true);
+            return run("sql-" + mode.name().toLowerCase(Locale.ROOT) + "-" + readMode.name().toLowerCase(Locale.ROOT),
+                request -> transaction.execute(status ->
+                    search.search(request, PageRequest.of(request.page(), request.size())).getNumberOfElements()));
+        }
+    }
+
+    /** Just the datasource, JPA and {@link ProductRepository}; none of the search services. */
+    @Configuration(proxyBeanMethods = false)
+    @ImportAutoConfiguration({DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class,
+        TransactionAutoConfiguration.class})
+    @EntityScan(basePackageClasses = Product.class)
+    @EnableJpaRepositories(basePackageClasses = ProductRepository.class,
+        includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = ProductRepository.class))
+    static class SqlContext {
+    }
+
+    private Result runElasticsearch() {
+        ClientConfiguration.MaybeSecureClientConfigurationBuilder builder = ClientConfiguration.builder()
+            .connectedTo(options.get("es-host", "localhost:9200"));
+        ClientConfiguration.TerminalClientConfigurationBuilder configuration = options.getBoolean("es-ssl", false)
+            ? builder.usingSsl() : builder;
+        if (options.get("es-user", null) != null) {
+            configuration.withBasicAuth(options.get("es-user", null), options.get("es-password", ""));
+        }
+        ElasticsearchClient client = ElasticsearchClients.createImperative(configuration.build());
+        try {
+            return runElasticsearch(new ElasticsearchTemplate(client));
+        } finally {
+            try {
+                client._transport().close();
+            } catch (IOException e) {
+                log.warning("⚠️ Could not close the Elasticsearch client: " + e.getMessage());
+            }
+        }
+    }
+
+    private Result runElasticsearch(ElasticsearchTemplate template) {
+        try {
+            template.cluster().health();
+        } catch (RuntimeException e) {
+            log.warning("⚠️ Elasticsearch is not reachable, skipping it: " + e.getMessage());
+            return null;
+        }
+
+        IndexCoordinates index = IndexCoordinates.of(options.get("es-index", "products_benchmark"));
+        if (options.getBoolean("load-es", true)) {
+            loadElasticsearch(template, index);
+        }
+
+        ProductQueryBuilder queryBuilder = new ProductQueryBuilder();
+        ProductHitMapper hitMapper = new ProductHitMapper();
+        return run("elasticsearch", request -> {
+            SearchHits<Product> hits = template.search(queryBuilder.build(request)
+                .withPageable(PageRequest.of(request.page(), request.size()))
+                .withTrackTotalHitsUpTo(TRACK_TOTAL_HITS_UP_TO)
+                .build(), Product.class, index);
+            return hitMapper.toProducts(hits).size();
+        });
+    }
+
+    private void loadElasticsearch(ElasticsearchTemplate template, IndexCoordinates index) {
+        IndexOperations indexOps = template.indexOps(index);
+        if (indexOps.exists()) {
+            indexOps.delete();
+        }
+        indexOps.create(indexOps.createSettings(Product.class), indexOps.createMapping(Product.class));
+
+        long started = System.nanoTime();
+        List<IndexQuery> batch = new ArrayList<>(1000);
+        catalog.forEach(catalogSize, product -> {
+            batch.add(new IndexQueryBuilder().withId(String.valueOf(product.getId())).withObject(product).build());
+            if (batch.size() == 1000) {
+                template.bulkIndex(batch, index);
+                batch.clear();
+            }
+        });
+        if (!batch.isEmpty()) {
+            template.bulkIndex(batch, index);
+        }
+        indexOps.refresh();
+        log.info("✅ Indexed " + catalogSize + " products into " + index.getIndexName() + " in "
+            + (System.nanoTime() - started) / 1_000_000 + " ms");
+    }
+
+    private Result run(String backend, Search search) {
+        log.info("🔥 Warming up " + backend + " for " + warmup.toSeconds() + "s with " + threads + " threads");
+        drive(search, warmup);
+        log.info("⏱️ Measuring " + backend + " for " + duration.toSeconds() + "s");
+        Result result = drive(search, duration).named(backend);
+        log.info("📊 " + result);
+        return result;
+    }
+
+    private Result drive(Search search, Duration length) {
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        AtomicLong nextQuery = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        long deadline = System.nanoTime() + length.toNanos();
+        List<Future<Histogram>> futures = new ArrayList<>();
+
+        for (int i = 0; i < threads; i++) {
+            futures.add(workers.submit(() -> {
+                Histogram histogram = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+                while (System.nanoTime() < deadline) {
+                    ProductSearchRequest request = queries.get((int) (nextQuery.getAndIncrement() % queries.size()));
+                    long started = System.nanoTime();
+                    try {
+                        search.execute(request);
+                    } catch (Exception e) {
+                        if (errors.getAndIncrement() == 0) {
+                            log.warning("⚠️ First failed query " + request + ": " + e);
+                        }
+                    }
+                    histogram.recordValue(Math.min(System.nanoTime() - started, HIGHEST_TRACKABLE_NANOS));
+                }
+                return histogram;
+            }));
+        }
+
+        Histogram total = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+        try {
+            for (Future<Histogram> future : futures) {
+                total.add(future.get());
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Load driver worker failed", e);
+        } finally {
+            workers.shutdownNow();
+        }
+        return new Result(null, total, errors.get(), length);
+    }
+
+    private void report(List<Result> results) throws IOException {
+        System.out.println();
+        System.out.printf("Catalog %d products, %d distinct queries, %d threads, %ds measured%n",
+            catalogSize, queries.size(), threads, duration.toSeconds());
+        System.out.printf("%-22s %10s %10s %9s %9s %9s %9s %8s%n",
+            "backend", "ops", "ops/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "errors");
+        for (Result result : results) {
+            System.out.printf("%-22s %10d %10.0f %9.2f %9.2f %9.2f %9.2f %8d%n",
+                result.backend(), result.histogram().getTotalCount(), result.throughput(),
+                result.percentileMillis(50), result.percentileMillis(99), result.percentileMillis(99.9),
+                result.histogram().getMaxValue() / 1e6, result.errors());
+        }
+
+        String reportPath = options.get("report", null);
+        if (reportPath != null) {
+            Path path = Path.of(reportPath);
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            StringBuilder lines = new StringBuilder();
+            if (!Files.exists(path)) {
+                lines.append("timestamp,backend,products,threads,ops,ops_per_sec,p50_ms,p99_ms,p999_ms,max_ms,errors\n");
+            }
+            for (Result result : results) {
+                lines.append(String.format(Locale.ROOT, "%s,%s,%d,%d,%d,%.1f,%.3f,%.3f,%.3f,%.3f,%d%n",
+                    Instant.now(), result.backend(), catalogSize, threads, result.histogram().getTotalCount(),
+                    result.throughput(), result.percentileMillis(50), result.percentileMillis(99),
+                    result.percentileMillis(99.9), result.histogram().getMaxValue() / 1e6, result.errors()));
+            }
+            Files.writeString(path, lines, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            log.info("📝 Appended results to " + path);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Search {
+        int execute(ProductSearchRequest request) throws Exception;
+    }
+
+    private record Result(String backend, Histogram histogram, long errors, Duration length) {
+
+        Result named(String name) {
+            return new Result(name, histogram, errors, length);
+        }
+
+        double throughput() {
+            return histogram.getTotalCount() / (length.toNanos() / 1e9);
+        }
+
+        double percentileMillis(double percentile) {
+            return histogram.getValueAtPercentile(percentile) / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %.0f ops/s, p50 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, %d errors",
+                backend, throughput(), percentileMillis(50), percentileMillis(99), percentileMillis(99.9), errors);
+        }
+    }
+}
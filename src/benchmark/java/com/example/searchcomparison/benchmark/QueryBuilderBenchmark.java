@@ -0,0 +1,63 @@
+package com.example.searchcomparison.benchmark;
+
+import co.elastic.clients.json.JsonpMapper;
+import co.elastic.clients.json.JsonpUtils;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import com.example.searchcomparison.model.ProductSearchRequest;
+import com.example.searchcomparison.service.ProductQueryBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning a search request into an Elasticsearch query, on its own and
+ * including the JSON serialization the client does before sending it. Requests
+ * come from the same {@link QueryMix} the load driver replays.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryBuilderBenchmark {
+
+    private final ProductQueryBuilder queryBuilder = new ProductQueryBuilder();
+    private final JsonpMapper jsonpMapper = new JacksonJsonpMapper();
+    private List<ProductSearchRequest> requests;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        requests = QueryMix.generate(new CatalogGenerator(42), 100_000, 1024, 7);
+    }
+
+    @Benchmark
+    public NativeQuery build() {
+        return buildNext();
+    }
+
+    @Benchmark
+    public String buildAndSerialize() {
+        return JsonpUtils.toJsonString(buildNext().getQuery(), jsonpMapper);
+    }
+
+    private NativeQuery buildNext() {
+        ProductSearchRequest request = requests.get(next++ & (requests.size() - 1));
+        return queryBuilder.build(request)
+            .withPageable(PageRequest.of(request.page(), request.size()))
+            .build();
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.searchcomparison.benchmark;
+
+import com.example.searchcomparison.model.Product;
+import com.example.searchcomparison.model.ProductSearchRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * A fixed, seeded sequence of searches shaped like real traffic: mostly exact name
+ * lookups and single-word fuzzy searches, some filtered searches and a tail of deep
+ * pages. Terms are taken from products that exist in the generated catalog, so hit
+ * counts are realistic rather than mostly empty. Both backends replay the same list.
+ */
+final class QueryMix {
+
+    private static final int PAGE_SIZE = 10;
+
+    private QueryMix() {
+    }
+
+    static List<ProductSearchRequest> generate(CatalogGenerator catalog, long catalogSize, int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<ProductSearchRequest> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Product product = catalog.product(1 + random.nextLong(catalogSize));
+            int kind = random.nextInt(100);
+            if (kind < 40) {
+                requests.add(ProductSearchRequest.of(product.getName(), 0, PAGE_SIZE, true, null));
+            } else if (kind < 70) {
+                requests.add(ProductSearchRequest.of(anyWord(product.getName(), random), 0, PAGE_SIZE, false, null));
+            } else if (kind < 90) {
+                double price = product.getPrice();
+                requests.add(new ProductSearchRequest(anyWord(product.getName(), random),
+                    Math.floor(price * 0.5), Math.ceil(price * 1.5), product.getCategory(),
+                    0, PAGE_SIZE, false, null, false).normalized());
+            } else {
+                requests.add(ProductSearchRequest.of(anyWord(product.getName(), random),
+                    20 + random.nextInt(80), PAGE_SIZE, false, null));
+            }
+        }
+        return requests;
+    }
+
+    private static String anyWord(String text, SplittableRandom random) {
+        String[] words = text.split(" ");
+        return words[random.nextInt(words.length)];
+    }
+}
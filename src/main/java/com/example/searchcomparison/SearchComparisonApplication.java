@@ -2,8 +2,10 @@ package com.example.searchcomparison;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class SearchComparisonApplication {
     public static void main(String[] args) {
         SpringApplication.run(SearchComparisonApplication.class, args);
@@ -1,20 +1,53 @@
 package com.example.searchcomparison.config;
 
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.json.JsonpMapper;
+import co.elastic.clients.transport.ElasticsearchTransport;
+import co.elastic.clients.transport.rest_client.RestClientOptions;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
 import org.apache.http.ssl.SSLContextBuilder;
 import org.apache.http.ssl.TrustStrategy;
+import org.elasticsearch.client.RestClient;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.data.elasticsearch.client.ClientConfiguration;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchClients;
 import org.springframework.data.elasticsearch.client.elc.ElasticsearchConfiguration;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchTemplate;
+import org.springframework.data.elasticsearch.client.elc.ReactiveElasticsearchClient;
+import org.springframework.data.elasticsearch.client.elc.ReactiveElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.ReactiveElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.convert.ElasticsearchConverter;
 import org.springframework.data.elasticsearch.repository.config.EnableElasticsearchRepositories;
 
 import javax.net.ssl.SSLContext;
 import java.security.cert.X509Certificate;
+import java.time.Duration;
 
+/**
+ * Elasticsearch clients. Searches and bulk writes go through separate clients, each with
+ * its own connection pool and timeouts: a search should give up within a few seconds,
+ * while a bulk request or force-merge may legitimately take minutes. The search client is
+ * the primary one; indexing components ask for {@link #BULK_OPERATIONS} or
+ * {@link #BULK_CLIENT} by name, and the search page's Elasticsearch leg for
+ * {@link #SEARCH_LEG_OPERATIONS}.
+ */
 @Configuration
 @EnableElasticsearchRepositories(basePackages = "com.example.searchcomparison.repository")
 public class ElasticsearchConfig extends ElasticsearchConfiguration {
 
+    public static final String BULK_OPERATIONS = "bulkElasticsearchOperations";
+    public static final String BULK_CLIENT = "bulkElasticsearchClient";
+    static final String BULK_REST_CLIENT = "bulkElasticsearchRestClient";
+    public static final String SEARCH_LEG_OPERATIONS = "searchLegElasticsearchOperations";
+
     @Value("${elasticsearch.host}")
     private String elasticsearchHost;
 
@@ -24,23 +57,175 @@ public class ElasticsearchConfig extends ElasticsearchConfiguration {
     @Value("${elasticsearch.password}")
     private String elasticsearchPassword;
 
+    @Value("${elasticsearch.ssl.enabled:true}")
+    private boolean sslEnabled;
+
+    @Value("${elasticsearch.ssl.trust-all:false}")
+    private boolean trustAllCertificates;
+
+    @Value("${elasticsearch.pool.max-connections:64}")
+    private int maxConnections;
+
+    @Value("${elasticsearch.pool.max-per-route:32}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${elasticsearch.pool.keep-alive-ms:30000}")
+    private long keepAliveMillis;
+
+    @Value("${elasticsearch.compression:true}")
+    private boolean compression;
+
+    @Value("${elasticsearch.search.connect-timeout-ms:1000}")
+    private long searchConnectTimeoutMillis;
+
+    @Value("${elasticsearch.search.socket-timeout-ms:3000}")
+    private long searchSocketTimeoutMillis;
+
+    @Value("${elasticsearch.bulk.connect-timeout-ms:5000}")
+    private long bulkConnectTimeoutMillis;
+
+    @Value("${elasticsearch.bulk.socket-timeout-ms:120000}")
+    private long bulkSocketTimeoutMillis;
+
+    private SSLContext sslContext;
+
     @Override
     public ClientConfiguration clientConfiguration() {
-        try {
-            TrustStrategy trustStrategy = (X509Certificate[] chain, String authType) -> true;
-            SSLContext sslContext = SSLContextBuilder.create()
-                    .loadTrustMaterial(null, trustStrategy)
-                    .build();
-
-            return ClientConfiguration.builder()
-                    .connectedTo(elasticsearchHost)
-                    .usingSsl(sslContext)
-                    .withBasicAuth(elasticsearchUsername, elasticsearchPassword)
-                    .withSocketTimeout(60000)
-                    .withConnectTimeout(60000)
-                    .build();
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to create SSL context for Elasticsearch", e);
+        return clientConfiguration(searchConnectTimeoutMillis, searchSocketTimeoutMillis);
+    }
+
+    @Bean
+    @Primary
+    @Override
+    public ElasticsearchClient elasticsearchClient(ElasticsearchTransport transport) {
+        return super.elasticsearchClient(transport);
+    }
+
+    @Bean(name = {"elasticsearchOperations", "elasticsearchTemplate"})
+    @Primary
+    @Override
+    public ElasticsearchOperations elasticsearchOperations(ElasticsearchConverter elasticsearchConverter,
+                                                          ElasticsearchClient elasticsearchClient) {
+        return super.elasticsearchOperations(elasticsearchConverter, elasticsearchClient);
+    }
+
+    /**
+     * Operations for the search page's Elasticsearch leg: the search client and its pool,
+     * but every request gives up at the leg deadline, both reading the response and waiting
+     * for a pooled connection. A leg the page has stopped waiting for thus frees its thread
+     * at the deadline instead of at the client-wide socket timeout.
+     */
+    @Bean(name = SEARCH_LEG_OPERATIONS)
+    public ElasticsearchOperations searchLegElasticsearchOperations(ElasticsearchConverter elasticsearchConverter,
+                                                                   ElasticsearchClient elasticsearchClient,
+                                                                   @Value("${search.elasticsearch-timeout-ms:2000}") long legTimeoutMillis) {
+        RequestConfig deadline = RequestConfig.custom()
+                .setConnectTimeout((int) searchConnectTimeoutMillis)
+                .setConnectionRequestTimeout((int) legTimeoutMillis)
+                .setSocketTimeout((int) legTimeoutMillis)
+                .build();
+        ElasticsearchClient legClient = elasticsearchClient.withTransportOptions(options -> {
+            if (options instanceof RestClientOptions.Builder restOptions) {
+                restOptions.restClientRequestOptionsBuilder().setRequestConfig(deadline);
+            }
+            return options;
+        });
+        return new ElasticsearchTemplate(legClient, elasticsearchConverter);
+    }
+
+    /**
+     * Connection pool of the bulk client, closed with the context. Not an autowire
+     * candidate, so injection points for the search client's {@link RestClient} stay
+     * unambiguous.
+     */
+    @Bean(name = BULK_REST_CLIENT, destroyMethod = "close", autowireCandidate = false)
+    public RestClient bulkRestClient() {
+        return ElasticsearchClients.getRestClient(clientConfiguration(bulkConnectTimeoutMillis, bulkSocketTimeoutMillis));
+    }
+
+    /**
+     * Client for bulk indexing and index administration, with long socket timeouts. Its
+     * pool is closed through {@link #bulkRestClient}; no destroy method is inferred here.
+     */
+    @Bean(name = BULK_CLIENT, destroyMethod = "")
+    public ElasticsearchClient bulkElasticsearchClient(JsonpMapper jsonpMapper) {
+        return ElasticsearchClients.createImperative(ElasticsearchClients.getElasticsearchTransport(
+                bulkRestClient(), ElasticsearchClients.IMPERATIVE_CLIENT, transportOptions(), jsonpMapper));
+    }
+
+    @Bean(name = BULK_OPERATIONS)
+    public ElasticsearchOperations bulkElasticsearchOperations(ElasticsearchConverter elasticsearchConverter,
+                                                              @Qualifier(BULK_CLIENT) ElasticsearchClient bulkClient) {
+        ElasticsearchTemplate template = new ElasticsearchTemplate(bulkClient, elasticsearchConverter);
+        template.setRefreshPolicy(refreshPolicy());
+        return template;
+    }
+
+    /**
+     * Non-blocking client for the streaming search API. It shares the search client's
+     * {@link RestClient}, and with it the connection pool and timeouts.
+     */
+    @Bean
+    public ReactiveElasticsearchClient reactiveElasticsearchClient(RestClient restClient, JsonpMapper jsonpMapper) {
+        return ElasticsearchClients.createReactive(restClient, transportOptions(), jsonpMapper);
+    }
+
+    @Bean(name = {"reactiveElasticsearchOperations", "reactiveElasticsearchTemplate"})
+    public ReactiveElasticsearchOperations reactiveElasticsearchOperations(ElasticsearchConverter elasticsearchConverter,
+                                                                          ReactiveElasticsearchClient reactiveClient) {
+        ReactiveElasticsearchTemplate template = new ReactiveElasticsearchTemplate(reactiveClient, elasticsearchConverter);
+        template.setRefreshPolicy(refreshPolicy());
+        return template;
+    }
+
+    private ClientConfiguration clientConfiguration(long connectTimeoutMillis, long socketTimeoutMillis) {
+        ClientConfiguration.MaybeSecureClientConfigurationBuilder builder = ClientConfiguration.builder()
+                .connectedTo(elasticsearchHost);
+        ClientConfiguration.TerminalClientConfigurationBuilder configuration = sslEnabled
+                ? (trustAllCertificates ? builder.usingSsl(sslContext()) : builder.usingSsl())
+                : builder;
+        return configuration
+                .withBasicAuth(elasticsearchUsername, elasticsearchPassword)
+                .withConnectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .withSocketTimeout(Duration.ofMillis(socketTimeoutMillis))
+                .withClientConfigurer(ElasticsearchClients.ElasticsearchHttpClientConfigurationCallback.from(
+                        httpClientBuilder -> httpClientBuilder
+                                .setMaxConnTotal(maxConnections)
+                                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                                .setKeepAliveStrategy(keepAliveStrategy())
+                                .setDefaultIOReactorConfig(IOReactorConfig.custom()
+                                        .setSoKeepAlive(true)
+                                        .build())))
+                // gzip request bodies and accept gzip responses; bulk payloads shrink several-fold
+                .withClientConfigurer(ElasticsearchClients.ElasticsearchRestClientConfigurationCallback.from(
+                        restClientBuilder -> restClientBuilder.setCompressionEnabled(compression)))
+                .build();
+    }
+
+    /**
+     * Reuses a pooled connection for at most {@code elasticsearch.pool.keep-alive-ms} of
+     * idleness, or less if the server says so. Expired connections are closed instead of
+     * leased, so connections dropped by a load balancer are not handed to requests.
+     */
+    private ConnectionKeepAliveStrategy keepAliveStrategy() {
+        return (response, context) -> {
+            long advertised = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return advertised > 0 ? Math.min(advertised, keepAliveMillis) : keepAliveMillis;
+        };
+    }
+
+    /** Only for development clusters with self-signed certificates ({@code elasticsearch.ssl.trust-all}). */
+    private synchronized SSLContext sslContext() {
+        if (sslContext == null) {
+            try {
+                TrustStrategy trustStrategy = (X509Certificate[] chain, String authType) -> true;
+                sslContext = SSLContextBuilder.create()
+                        .loadTrustMaterial(null, trustStrategy)
+                        .build();
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to create SSL context for Elasticsearch", e);
+            }
         }
+        return sslContext;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,31 @@
+package com.example.searchcomparison.config;
+
+import com.example.searchcomparison.service.SearchMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Loads the metrics defaults (actuator exposure, latency histograms) and registers the
+ * render timer. {@code @PropertySource} has the lowest precedence, so any value in
+ * {@code application.properties} or the environment overrides these defaults.
+ */
+@Configuration
+@PropertySource("classpath:metrics.properties")
+public class MetricsConfig implements WebMvcConfigurer {
+
+    private final SearchMetrics searchMetrics;
+
+    @Autowired
+    public MetricsConfig(SearchMetrics searchMetrics) {
+        this.searchMetrics = searchMetrics;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new RenderTimingInterceptor(searchMetrics))
+                .addPathPatterns("/", "/search", "/advanced-search");
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.searchcomparison.config;
+
+import com.example.searchcomparison.service.SearchMetrics;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+/**
+ * Times the Thymeleaf render of each page: {@code postHandle} runs after the controller
+ * and before the view, {@code afterCompletion} after the view has been written.
+ */
+public class RenderTimingInterceptor implements HandlerInterceptor {
+
+    private static final String RENDER_START = RenderTimingInterceptor.class.getName() + ".start";
+    private static final String RENDER_VIEW = RenderTimingInterceptor.class.getName() + ".view";
+
+    private final SearchMetrics searchMetrics;
+
+    public RenderTimingInterceptor(SearchMetrics searchMetrics) {
+        this.searchMetrics = searchMetrics;
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        if (modelAndView != null && modelAndView.getViewName() != null
+                && !modelAndView.getViewName().startsWith("redirect:")) {
+            request.setAttribute(RENDER_VIEW, modelAndView.getViewName());
+            request.setAttribute(RENDER_START, System.nanoTime());
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (request.getAttribute(RENDER_START) instanceof Long start
+                && request.getAttribute(RENDER_VIEW) instanceof String view) {
+            searchMetrics.recordRender(view, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.searchcomparison.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Creates the MySQL indexes the optimized SQL search mode relies on: a BTREE index on
+ * {@code name} for exact matches and a FULLTEXT index on {@code (name, description)}
+ * for relevance search. JPA cannot declare FULLTEXT indexes, so they are added here
+ * when missing. Only runs when {@code search.sql.mode=optimized}.
+ */
+@Component
+public class SqlSearchSchemaInitializer implements ApplicationRunner {
+
+    private static final Logger log = Logger.getLogger(SqlSearchSchemaInitializer.class.getName());
+    private static final String TABLE = "products";
+    static final String NAME_INDEX = "idx_products_name";
+    static final String FULLTEXT_INDEX = "ft_products_name_description";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${search.sql.mode:legacy}")
+    private String sqlMode;
+
+    @Value("${search.sql.create-indexes:true}")
+    private boolean createIndexes;
+
+    // "ngram" suits languages without word separators; the default parser splits on whitespace
+    @Value("${search.sql.fulltext-parser:default}")
+    private String fullTextParser;
+
+    @Autowired
+    public SqlSearchSchemaInitializer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!"optimized".equalsIgnoreCase(sqlMode.trim()) || !createIndexes) {
+            return;
+        }
+        try {
+            warnIfCaseSensitive();
+            if (!indexExists(NAME_INDEX)) {
+                log.info("🛠️ Creating " + NAME_INDEX + " on " + TABLE + "(name)");
+                jdbcTemplate.execute("CREATE INDEX " + NAME_INDEX + " ON " + TABLE + " (name)");
+            }
+            if (!indexExists(FULLTEXT_INDEX)) {
+                String parser = "ngram".equalsIgnoreCase(fullTextParser.trim()) ? " WITH PARSER ngram" : "";
+                log.info("🛠️ Creating FULLTEXT " + FULLTEXT_INDEX + " on " + TABLE + "(name, description)" + parser);
+                jdbcTemplate.execute("CREATE FULLTEXT INDEX " + FULLTEXT_INDEX + " ON " + TABLE
+                        + " (name, description)" + parser);
+            }
+        } catch (Exception e) {
+            log.log(Level.SEVERE, "❌ Could not prepare indexes for the optimized SQL search mode", e);
+        }
+    }
+
+    private boolean indexExists(String indexName) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.statistics " +
+                "WHERE table_schema = DATABASE() AND table_name = ? AND index_name = ?",
+                Integer.class, TABLE, indexName);
+        return count != null && count > 0;
+    }
+
+    // The optimized exact match drops LOWER() and relies on a _ci collation instead.
+    private void warnIfCaseSensitive() {
+        String collation = jdbcTemplate.queryForObject(
+                "SELECT collation_name FROM information_schema.columns " +
+                "WHERE table_schema = DATABASE() AND table_name = ? AND column_name = 'name'",
+                String.class, TABLE);
+        if (collation != null && !collation.endsWith("_ci")) {
+            log.warning("⚠️ " + TABLE + ".name uses collation " + collation
+                    + "; exact matches in optimized mode will be case-sensitive");
+        }
+    }
+}
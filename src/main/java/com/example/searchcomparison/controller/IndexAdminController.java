@@ -0,0 +1,61 @@
+package com.example.searchcomparison.controller;
+
+import com.example.searchcomparison.service.IndexReadiness;
+import com.example.searchcomparison.service.IndexVersionManager;
+import com.example.searchcomparison.service.ProductIndexingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/index")
+public class IndexAdminController {
+
+    private final ProductIndexingService indexingService;
+    private final IndexVersionManager indexVersionManager;
+    private final IndexReadiness indexReadiness;
+
+    @Autowired
+    public IndexAdminController(ProductIndexingService indexingService, IndexVersionManager indexVersionManager,
+                                IndexReadiness indexReadiness) {
+        this.indexingService = indexingService;
+        this.indexVersionManager = indexVersionManager;
+        this.indexReadiness = indexReadiness;
+    }
+
+    @GetMapping
+    public Map<String, Object> status() throws IOException {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("alias", indexVersionManager.aliasName());
+        status.put("liveVersion", indexVersionManager.currentVersion().orElse(null));
+        status.put("versions", indexVersionManager.listVersions());
+        status.put("building", indexingService.getBuildingIndex().orElse(null));
+        status.put("state", indexReadiness.getState());
+        return status;
+    }
+
+    @PostMapping("/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuild() {
+        if (!indexingService.requestRebuild()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("message", "A rebuild is already running"));
+        }
+        return ResponseEntity.accepted().body(Map.of("message", "Rebuild scheduled"));
+    }
+
+    @PostMapping("/rollback")
+    public ResponseEntity<Map<String, Object>> rollback() throws IOException {
+        return indexingService.rollback()
+                .<ResponseEntity<Map<String, Object>>>map(version -> ResponseEntity.ok(Map.of("liveVersion", version)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(Map.of("message", "No older version to roll back to")));
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.searchcomparison.controller;
+
+import com.example.searchcomparison.model.IngestReport;
+import com.example.searchcomparison.service.ImportFormat;
+import com.example.searchcomparison.service.ProductIngestService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+/**
+ * Bulk product import. The upload is read straight from the request body and the
+ * progress is written back as NDJSON while the import runs: one line per batch, then the
+ * {@link IngestReport}. Both run on the request thread rather than as an async response,
+ * so a long import is not cut off by the async request timeout.
+ */
+@RestController
+@RequestMapping("/admin/products")
+public class ProductAdminController {
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final ProductIngestService ingestService;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public ProductAdminController(ProductIngestService ingestService, ObjectMapper objectMapper) {
+        this.ingestService = ingestService;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostMapping(path = "/import", consumes = {"text/csv", NDJSON})
+    public void importProducts(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ImportFormat format = MediaType.parseMediaType(request.getContentType()).isCompatibleWith(MediaType.parseMediaType(NDJSON))
+                ? ImportFormat.NDJSON : ImportFormat.CSV;
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding("UTF-8");
+        OutputStream out = response.getOutputStream();
+        try {
+            IngestReport report = ingestService.ingest(request.getInputStream(), format, batch -> {
+                try {
+                    writeLine(out, batch);
+                } catch (IOException e) {
+                    // The client went away; stop reading its upload
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writeLine(out, report);
+        } catch (IllegalArgumentException e) {
+            if (response.isCommitted()) {
+                throw e;
+            }
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            writeLine(out, Map.of("message", e.getMessage()));
+        }
+    }
+
+    private void writeLine(OutputStream out, Object value) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(value));
+        out.write('\n');
+        out.flush();
+    }
+}
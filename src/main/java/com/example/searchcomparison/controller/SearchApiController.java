@@ -0,0 +1,72 @@
+package com.example.searchcomparison.controller;
+
+import com.example.searchcomparison.model.BatchSearchQuery;
+import com.example.searchcomparison.model.BatchSearchResponse;
+import com.example.searchcomparison.model.ProductSearchRequest;
+import com.example.searchcomparison.model.ProductView;
+import com.example.searchcomparison.service.BatchSearchService;
+import com.example.searchcomparison.service.ProductStreamService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON search API. Results are a {@link Flux}: with {@code Accept: application/x-ndjson}
+ * or {@code text/event-stream} each product is written as soon as it arrives and the
+ * servlet thread is released while Elasticsearch works; plain {@code application/json}
+ * collects them into one array. {@code POST /api/search/batch} answers many queries at once
+ * from both backends.
+ */
+@RestController
+@RequestMapping("/api")
+public class SearchApiController {
+
+    private final ProductStreamService productStreamService;
+    private final BatchSearchService batchSearchService;
+
+    @Autowired
+    public SearchApiController(ProductStreamService productStreamService, BatchSearchService batchSearchService) {
+        this.productStreamService = productStreamService;
+        this.batchSearchService = batchSearchService;
+    }
+
+    // No "produces": the streaming format follows the Accept header, and anything else gets a JSON array
+    @GetMapping("/search")
+    public ResponseEntity<Flux<ProductView>> search(
+            @RequestParam(required = false) String query,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "false") boolean fuzzy,
+            @RequestParam(defaultValue = "100") int limit) {
+        if (!productStreamService.isAvailable()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        ProductSearchRequest request = ProductSearchRequest.parse(query, minPrice, maxPrice, category,
+                0, limit, !fuzzy, null);
+        return ResponseEntity.ok(productStreamService.search(request, limit));
+    }
+
+    @PostMapping("/search/batch")
+    public ResponseEntity<?> batchSearch(@RequestBody List<BatchSearchQuery> queries) {
+        if (queries == null || queries.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("message", "The batch has no queries"));
+        }
+        if (queries.size() > batchSearchService.maxQueries()) {
+            return ResponseEntity.badRequest().body(Map.of("message",
+                    "A batch may hold at most " + batchSearchService.maxQueries() + " queries"));
+        }
+        BatchSearchResponse response = batchSearchService.search(queries);
+        return ResponseEntity.ok(response);
+    }
+}
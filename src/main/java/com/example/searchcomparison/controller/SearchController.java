@@ -1,5 +1,7 @@
 package com.example.searchcomparison.controller;
 
+import com.example.searchcomparison.model.ProductSearchRequest;
+import com.example.searchcomparison.service.IndexReadiness;
 import com.example.searchcomparison.service.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
@@ -11,10 +13,12 @@ import org.springframework.web.bind.annotation.RequestParam;
 public class SearchController {
 
     private final ProductService productService;
+    private final IndexReadiness indexReadiness;
 
     @Autowired
-    public SearchController(ProductService productService) {
+    public SearchController(ProductService productService, IndexReadiness indexReadiness) {
         this.productService = productService;
+        this.indexReadiness = indexReadiness;
     }
 
     @GetMapping("/")
@@ -28,18 +32,33 @@ public class SearchController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size,
             @RequestParam(defaultValue = "false") boolean fuzzy,
+            @RequestParam(required = false) String cursor,
             Model model) {
         // Pass !fuzzy as strict parameter (when fuzzy is true, strict should be false and vice versa)
-        var results = productService.searchProducts(query, page, size, !fuzzy);
+        var results = productService.searchProducts(ProductSearchRequest.of(query, page, size, !fuzzy, cursor));
         model.addAttribute("traditionalResults", results.get("traditionalResults"));
         model.addAttribute("elasticResults", results.get("elasticResults"));
         model.addAttribute("traditionalSearchTime", results.get("traditionalSearchTime"));
+        model.addAttribute("traditionalSearchMode", results.get("traditionalSearchMode"));
         model.addAttribute("elasticSearchTime", results.get("elasticSearchTime"));
         model.addAttribute("currentPage", results.get("currentPage"));
         model.addAttribute("totalPages", results.get("totalPages"));
         model.addAttribute("totalElements", results.get("totalElements"));
+        model.addAttribute("elasticTotalHits", results.get("elasticTotalHits"));
+        model.addAttribute("elasticTotalHitsExact", results.get("elasticTotalHitsExact"));
+        model.addAttribute("elasticNextCursor", results.get("elasticNextCursor"));
+        model.addAttribute("luceneResults", results.get("luceneResults"));
+        model.addAttribute("luceneSearchTime", results.get("luceneSearchTime"));
+        model.addAttribute("luceneTotalHits", results.get("luceneTotalHits"));
+        model.addAttribute("luceneTotalHitsExact", results.get("luceneTotalHitsExact"));
+        model.addAttribute("cached", results.containsKey("cached"));
+        model.addAttribute("cacheLookupTime", results.get("cacheLookupTime"));
         model.addAttribute("query", query);
+        model.addAttribute("size", size);
         model.addAttribute("fuzzy", fuzzy);
+        // Warming index or open circuit breaker, and no embedded index to stand in: database results only
+        model.addAttribute("sqlOnly", !results.containsKey("luceneResults") && (results.containsKey("indexWarming")
+                || results.containsKey("elasticUnavailable") || !indexReadiness.isReady()));
         model.addAttribute("message", results.get("message"));
         return "search";
     }
@@ -53,39 +72,43 @@ public class SearchController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size,
             @RequestParam(defaultValue = "false") boolean fuzzy,
+            @RequestParam(required = false) String cursor,
             Model model) {
         
-        StringBuilder searchQuery = new StringBuilder();
-        if (query != null && !query.trim().isEmpty()) {
-            searchQuery.append(query.trim());
-        }
-        if (minPrice != null) {
-            if (searchQuery.length() > 0) searchQuery.append(" ");
-            searchQuery.append("price>=" + minPrice);
-        }
-        if (maxPrice != null) {
-            if (searchQuery.length() > 0) searchQuery.append(" ");
-            searchQuery.append("price<=" + maxPrice);
-        }
-        if (category != null && !category.trim().isEmpty()) {
-            if (searchQuery.length() > 0) searchQuery.append(" ");
-            searchQuery.append("category:" + category.trim());
-        }
-        
-        var results = productService.searchProducts(searchQuery.toString(), page, size, !fuzzy);
+        // Filters travel as typed fields so they run as non-scoring filters, not as search text.
+        ProductSearchRequest request = ProductSearchRequest.parse(query, minPrice, maxPrice, category,
+                page, size, !fuzzy, cursor).withFacets();
+        var results = productService.searchProducts(request);
         
         model.addAttribute("traditionalResults", results.get("traditionalResults"));
         model.addAttribute("elasticResults", results.get("elasticResults"));
         model.addAttribute("traditionalSearchTime", results.get("traditionalSearchTime"));
+        model.addAttribute("traditionalSearchMode", results.get("traditionalSearchMode"));
         model.addAttribute("elasticSearchTime", results.get("elasticSearchTime"));
         model.addAttribute("currentPage", results.get("currentPage"));
         model.addAttribute("totalPages", results.get("totalPages"));
         model.addAttribute("totalElements", results.get("totalElements"));
+        model.addAttribute("elasticTotalHits", results.get("elasticTotalHits"));
+        model.addAttribute("elasticTotalHitsExact", results.get("elasticTotalHitsExact"));
+        model.addAttribute("elasticNextCursor", results.get("elasticNextCursor"));
+        model.addAttribute("luceneResults", results.get("luceneResults"));
+        model.addAttribute("luceneSearchTime", results.get("luceneSearchTime"));
+        model.addAttribute("luceneTotalHits", results.get("luceneTotalHits"));
+        model.addAttribute("luceneTotalHitsExact", results.get("luceneTotalHitsExact"));
+        model.addAttribute("cached", results.containsKey("cached"));
+        model.addAttribute("cacheLookupTime", results.get("cacheLookupTime"));
         model.addAttribute("query", query);
-        model.addAttribute("minPrice", minPrice);
-        model.addAttribute("maxPrice", maxPrice);
-        model.addAttribute("category", category);
+        model.addAttribute("minPrice", request.minPrice());
+        model.addAttribute("maxPrice", request.maxPrice());
+        model.addAttribute("category", request.category());
+        model.addAttribute("traditionalFacets", results.get("traditionalFacets"));
+        model.addAttribute("elasticFacets", results.get("elasticFacets"));
+        model.addAttribute("luceneFacets", results.get("luceneFacets"));
+        model.addAttribute("size", size);
         model.addAttribute("fuzzy", fuzzy);
+        // Warming index or open circuit breaker, and no embedded index to stand in: database results only
+        model.addAttribute("sqlOnly", !results.containsKey("luceneResults") && (results.containsKey("indexWarming")
+                || results.containsKey("elasticUnavailable") || !indexReadiness.isReady()));
         model.addAttribute("message", results.get("message"));
         
         return "advanced-search";
@@ -0,0 +1,28 @@
+package com.example.searchcomparison.controller;
+
+import com.example.searchcomparison.model.Suggestion;
+import com.example.searchcomparison.service.SuggestionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+public class SuggestController {
+
+    private final SuggestionService suggestionService;
+
+    @Autowired
+    public SuggestController(SuggestionService suggestionService) {
+        this.suggestionService = suggestionService;
+    }
+
+    @GetMapping("/suggest")
+    public List<Suggestion> suggest(
+            @RequestParam("q") String prefix,
+            @RequestParam(defaultValue = "5") int size) {
+        return suggestionService.suggest(prefix, size);
+    }
+}
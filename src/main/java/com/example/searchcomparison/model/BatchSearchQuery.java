@@ -0,0 +1,17 @@
+package com.example.searchcomparison.model;
+
+/**
+ * One entry of a batch search, with the same parameters as {@code /advanced-search}.
+ * Missing values fall back to a strict search for the first {@code 10} results.
+ */
+public record BatchSearchQuery(String query, Double minPrice, Double maxPrice, String category,
+                               Boolean fuzzy, Integer size) {
+
+    private static final int DEFAULT_SIZE = 10;
+
+    public ProductSearchRequest toRequest(int maxSize) {
+        int pageSize = size == null ? DEFAULT_SIZE : Math.max(1, Math.min(size, maxSize));
+        return ProductSearchRequest.parse(query, minPrice, maxPrice, category, 0, pageSize,
+                !Boolean.TRUE.equals(fuzzy), null);
+    }
+}
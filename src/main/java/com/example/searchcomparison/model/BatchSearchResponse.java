@@ -0,0 +1,17 @@
+package com.example.searchcomparison.model;
+
+import java.util.List;
+
+/**
+ * Results of a batch search in request order. {@code elasticsearchTimeMs} is the single
+ * {@code _msearch} round trip shared by all queries; {@code sqlTimeMs} is the wall time of
+ * the SQL queries run side by side, and each item carries its own SQL time.
+ */
+public record BatchSearchResponse(long totalTimeMs, long elasticsearchTimeMs, long sqlTimeMs, String elasticError,
+                                  List<Item> results) {
+
+    public record Item(ProductSearchRequest request,
+                       List<ProductView> elasticResults, Long elasticTotalHits,
+                       List<ProductView> sqlResults, Long sqlTotalElements, Long sqlTimeMs, String sqlError) {
+    }
+}
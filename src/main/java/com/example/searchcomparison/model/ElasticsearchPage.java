@@ -0,0 +1,17 @@
+package com.example.searchcomparison.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of Elasticsearch hits with the index's own hit count. {@code nextCursor} is
+ * set when there is a following page that should be fetched with {@code search_after};
+ * {@code facets} is set when the request asked for them.
+ */
+public record ElasticsearchPage(List<ProductView> results, long totalHits, boolean totalHitsExact, String nextCursor,
+                                Facets facets) {
+
+    public static ElasticsearchPage empty() {
+        return new ElasticsearchPage(Collections.emptyList(), 0, true, null, null);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.searchcomparison.model;
+
+import java.util.List;
+
+/**
+ * Counts for the advanced search sidebar, computed over all matches of a search rather
+ * than the current page: matches per category, most frequent first, and a price
+ * histogram whose buckets cover {@code [from, to)}.
+ */
+public record Facets(List<CategoryCount> categories, List<PriceBucket> prices) {
+
+    public record CategoryCount(String category, long count) {
+    }
+
+    public record PriceBucket(double from, double to, long count) {
+    }
+}
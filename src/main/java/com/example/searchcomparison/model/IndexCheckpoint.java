@@ -0,0 +1,63 @@
+package com.example.searchcomparison.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+
+/**
+ * Progress marker for a reindex run, stored next to the products so a restart can
+ * resume after the last id that is known to be in Elasticsearch.
+ */
+@Entity
+@Table(name = "index_checkpoints")
+public class IndexCheckpoint {
+    @Id
+    private String indexName;
+
+    private Long lastIndexedId;
+
+    private boolean completed;
+
+    private Instant updatedAt;
+
+    public IndexCheckpoint() {}
+
+    public IndexCheckpoint(String indexName) {
+        this.indexName = indexName;
+        this.lastIndexedId = 0L;
+    }
+
+    public String getIndexName() {
+        return indexName;
+    }
+
+    public void setIndexName(String indexName) {
+        this.indexName = indexName;
+    }
+
+    public Long getLastIndexedId() {
+        return lastIndexedId;
+    }
+
+    public void setLastIndexedId(Long lastIndexedId) {
+        this.lastIndexedId = lastIndexedId;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(boolean completed) {
+        this.completed = completed;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
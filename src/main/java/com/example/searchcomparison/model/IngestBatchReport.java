@@ -0,0 +1,21 @@
+package com.example.searchcomparison.model;
+
+import java.util.List;
+
+/**
+ * Progress of one batch of a product import. {@code rows} counts every record read for
+ * the batch; {@code rejected} ones never reached MySQL, and {@code errors} explains the
+ * first few of them. Ids are those MySQL generated for the batch.
+ */
+public record IngestBatchReport(
+        int batch,
+        int rows,
+        int inserted,
+        int rejected,
+        Long firstId,
+        Long lastId,
+        long sqlMillis,
+        long elasticsearchMillis,
+        int elasticsearchFailed,
+        List<String> errors) {
+}
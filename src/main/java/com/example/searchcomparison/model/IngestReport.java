@@ -0,0 +1,27 @@
+package com.example.searchcomparison.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Summary of a product import. Rows that Elasticsearch rejected are in MySQL and have
+ * been handed to the sync worker, which keeps retrying them.
+ */
+public record IngestReport(
+        long rows,
+        long inserted,
+        long rejected,
+        long elasticsearchFailed,
+        int batches,
+        long elapsedMillis) {
+
+    @JsonProperty("rowsPerSecond")
+    public double rowsPerSecond() {
+        return elapsedMillis == 0 ? inserted : inserted * 1000.0 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d rows read, %d inserted, %d rejected, %d not yet in Elasticsearch, %d batches in %d ms (%.0f rows/sec)",
+                rows, inserted, rejected, elasticsearchFailed, batches, elapsedMillis, rowsPerSecond());
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.searchcomparison.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of hits from the embedded Lucene index with its hit count, counted exactly up
+ * to {@code search.lucene.track-total-hits}; {@code facets} is set when the request asked
+ * for them.
+ */
+public record LucenePage(List<ProductView> results, long totalHits, boolean totalHitsExact, Facets facets) {
+
+    public static LucenePage empty() {
+        return new LucenePage(Collections.emptyList(), 0, true, null);
+    }
+}
@@ -1,17 +1,28 @@
 package com.example.searchcomparison.model;
 
+import com.example.searchcomparison.service.ProductChangeListener;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Id;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.elasticsearch.annotations.Document;
 import org.springframework.data.elasticsearch.annotations.Field;
 import org.springframework.data.elasticsearch.annotations.FieldType;
+import org.springframework.data.elasticsearch.annotations.InnerField;
+import org.springframework.data.elasticsearch.annotations.MultiField;
 import org.springframework.data.elasticsearch.annotations.Setting;
 
 @Entity
-@Table(name = "products")
+@EntityListeners(ProductChangeListener.class)
+@Table(name = "products", indexes = {
+    @Index(name = "idx_products_name", columnList = "name"),
+    @Index(name = "idx_products_category_price", columnList = "category, price"),
+    @Index(name = "idx_products_price", columnList = "price")
+})
 @Document(indexName = "products")
 @Setting(settingPath = "es-settings.json")
 public class Product {
@@ -20,16 +31,32 @@ public class Product {
     @Field(type = FieldType.Keyword)
     private Long id;
     
-    @Field(type = FieldType.Text, analyzer = "english")
+    // name.autocomplete holds edge n-grams of each word, so prefix suggestions are plain
+    // term lookups at query time instead of prefix expansions. name.keyword serves exact
+    // matches; the normalizer lowercases both the indexed value and the term queried, and
+    // nothing sorts or aggregates on it, so it needs no doc values.
+    @MultiField(
+        mainField = @Field(type = FieldType.Text, analyzer = "english"),
+        otherFields = {
+            @InnerField(suffix = "autocomplete", type = FieldType.Text,
+                analyzer = "autocomplete_index", searchAnalyzer = "autocomplete_search"),
+            @InnerField(suffix = "keyword", type = FieldType.Keyword,
+                normalizer = "lowercase_keyword", docValues = false, ignoreAbove = 256)
+        })
     private String name;
     
-    @Field(type = FieldType.Keyword)
+    // MySQL column only; Elasticsearch has name.keyword instead
+    @Transient
     private String nameKeyword;
     
-    @Field(type = FieldType.Text, analyzer = "english")
+    // Shown on the result page but never searched in Elasticsearch, so it lives in
+    // _source only: no inverted index and no norms.
+    @Field(type = FieldType.Text, index = false)
     private String description;
     
-    @Field(type = FieldType.Keyword)
+    // Facets aggregate on category for every search; building its global ordinals at
+    // refresh time instead of on the first aggregation keeps facet latency flat.
+    @Field(type = FieldType.Keyword, eagerGlobalOrdinals = true)
     private String category;
     
     @Field(type = FieldType.Double)
@@ -0,0 +1,94 @@
+package com.example.searchcomparison.model;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Typed search request: free text plus structured filters. Text is scored, while the
+ * price range and category are applied as non-scoring filters on both backends.
+ * {@code facets} asks both backends for category and price counts as well.
+ */
+public record ProductSearchRequest(
+        String query,
+        Double minPrice,
+        Double maxPrice,
+        String category,
+        int page,
+        int size,
+        boolean strict,
+        String cursor,
+        boolean facets) {
+
+    // price>=10, price<=20.5, category:electronics or category:"home garden"
+    private static final Pattern FILTER_TOKEN = Pattern.compile(
+            "(?i)\\bprice\\s*(>=|<=)\\s*(\\d+(?:\\.\\d+)?)|\\bcategory:(\"[^\"]*\"|\\S+)");
+
+    public static ProductSearchRequest of(String query, int page, int size, boolean strict, String cursor) {
+        return new ProductSearchRequest(query, null, null, null, page, size, strict, cursor, false).normalized();
+    }
+
+    /**
+     * Builds a request from a text box that may also contain filter tokens such as
+     * {@code price>=10} or {@code category:books}. Explicit filter arguments win over
+     * tokens found in the text.
+     */
+    public static ProductSearchRequest parse(String text, Double minPrice, Double maxPrice, String category,
+                                             int page, int size, boolean strict, String cursor) {
+        StringBuilder remaining = new StringBuilder();
+        Double parsedMin = null;
+        Double parsedMax = null;
+        String parsedCategory = null;
+
+        if (text != null) {
+            Matcher matcher = FILTER_TOKEN.matcher(text);
+            int last = 0;
+            while (matcher.find()) {
+                remaining.append(text, last, matcher.start()).append(' ');
+                last = matcher.end();
+                if (matcher.group(1) != null) {
+                    double value = Double.parseDouble(matcher.group(2));
+                    if (">=".equals(matcher.group(1))) {
+                        parsedMin = value;
+                    } else {
+                        parsedMax = value;
+                    }
+                } else {
+                    parsedCategory = matcher.group(3).replace("\"", "");
+                }
+            }
+            remaining.append(text.substring(last));
+        }
+
+        return new ProductSearchRequest(remaining.toString(),
+                minPrice != null ? minPrice : parsedMin,
+                maxPrice != null ? maxPrice : parsedMax,
+                category != null && !category.isBlank() ? category : parsedCategory,
+                page, size, strict, cursor, false).normalized();
+    }
+
+    /** Trims and collapses whitespace and turns blanks into nulls, so equal requests compare equal. */
+    public ProductSearchRequest normalized() {
+        return new ProductSearchRequest(clean(query), minPrice, maxPrice, clean(category), page, size, strict,
+                cursor == null || cursor.isBlank() ? null : cursor, facets);
+    }
+
+    public ProductSearchRequest withFacets() {
+        return new ProductSearchRequest(query, minPrice, maxPrice, category, page, size, strict, cursor, true);
+    }
+
+    public boolean hasText() {
+        return query != null && !query.isEmpty();
+    }
+
+    public boolean hasFilters() {
+        return minPrice != null || maxPrice != null || category != null;
+    }
+
+    private static String clean(String value) {
+        if (value == null) {
+            return null;
+        }
+        String cleaned = value.trim().replaceAll("\\s+", " ");
+        return cleaned.isEmpty() ? null : cleaned;
+    }
+}
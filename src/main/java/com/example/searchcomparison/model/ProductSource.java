@@ -0,0 +1,11 @@
+package com.example.searchcomparison.model;
+
+/**
+ * The {@code _source} fields a result page needs, read from Elasticsearch with source
+ * filtering. It has no id: the id comes from the hit metadata, so a malformed one can be
+ * skipped per hit instead of failing the conversion of the whole response.
+ */
+public record ProductSource(String name, String description, String category, Double price) {
+
+    public static final String[] FIELDS = {"name", "description", "category", "price"};
+}
@@ -0,0 +1,18 @@
+package com.example.searchcomparison.model;
+
+/**
+ * Interface projection of the displayed product columns, for native queries where JPQL
+ * constructor expressions are not available.
+ */
+public interface ProductSummary {
+
+    Long getId();
+
+    String getName();
+
+    String getDescription();
+
+    String getCategory();
+
+    Double getPrice();
+}
@@ -0,0 +1,24 @@
+package com.example.searchcomparison.model;
+
+/**
+ * Immutable product as shown on a result page. Both search legs produce these instead of
+ * {@link Product} entities: the SQL leg selects straight into it, so nothing is added to
+ * the persistence context, and the Elasticsearch leg builds it from a filtered
+ * {@code _source}.
+ */
+public record ProductView(Long id, String name, String description, String category, Double price) {
+
+    public static ProductView of(Product product) {
+        return new ProductView(product.getId(), product.getName(), product.getDescription(),
+                product.getCategory(), product.getPrice());
+    }
+
+    public static ProductView of(ProductSummary summary) {
+        return new ProductView(summary.getId(), summary.getName(), summary.getDescription(),
+                summary.getCategory(), summary.getPrice());
+    }
+
+    public static ProductView of(Long id, ProductSource source) {
+        return new ProductView(id, source.name(), source.description(), source.category(), source.price());
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.searchcomparison.model;
+
+/**
+ * Summary of a single reindex run, used to check that throughput is healthy
+ * and that heap usage stays flat regardless of table size.
+ */
+public record ReindexReport(
+        String indexName,
+        long documentsIndexed,
+        long documentsFailed,
+        long batchesSent,
+        long retriedDocuments,
+        long elapsedMillis,
+        long peakHeapBytes) {
+
+    public double docsPerSecond() {
+        return elapsedMillis == 0 ? documentsIndexed : documentsIndexed * 1000.0 / elapsedMillis;
+    }
+
+    public boolean hasFailures() {
+        return documentsFailed > 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d docs indexed, %d failed, %d retried, %d batches in %d ms (%.0f docs/sec, peak heap %d MB)",
+                indexName, documentsIndexed, documentsFailed, retriedDocuments, batchesSent, elapsedMillis,
+                docsPerSecond(), peakHeapBytes / (1024 * 1024));
+    }
+}
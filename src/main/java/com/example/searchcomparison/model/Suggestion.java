@@ -0,0 +1,5 @@
+package com.example.searchcomparison.model;
+
+/** A search-as-you-type suggestion: just enough to render one row of the dropdown. */
+public record Suggestion(Long id, String name, String category) {
+}
@@ -0,0 +1,12 @@
+package com.example.searchcomparison.repository;
+
+import com.example.searchcomparison.model.IndexCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface IndexCheckpointRepository extends JpaRepository<IndexCheckpoint, String> {
+    List<IndexCheckpoint> findByCompletedFalseAndIndexNameStartingWith(String prefix);
+}
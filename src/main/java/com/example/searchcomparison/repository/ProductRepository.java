@@ -1,9 +1,12 @@
 package com.example.searchcomparison.repository;
 
 import com.example.searchcomparison.model.Product;
+import com.example.searchcomparison.model.ProductSummary;
+import com.example.searchcomparison.model.ProductView;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -11,7 +14,8 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>,
+        ProductViewRepository {
     @Query("SELECT p FROM Product p WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :query, '%')) " +
            "OR LOWER(p.description) LIKE LOWER(CONCAT('%', :query, '%')) " +
            "OR LOWER(p.category) LIKE LOWER(CONCAT('%', :query, '%'))")
@@ -21,4 +25,59 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
 
     @Query("SELECT p FROM Product p WHERE LOWER(p.name) = LOWER(:query)")
     Page<Product> searchExactProducts(@Param("query") String query, Pageable pageable);
+
+    // Optimized SQL mode: compares the bare column so idx_products_name can serve it. The
+    // column's case-insensitive (_ci) collation provides what LOWER() did in the query above.
+    @Query("SELECT p FROM Product p WHERE p.name = :query")
+    Page<Product> searchExactProductsIndexed(@Param("query") String query, Pageable pageable);
+
+    // Optimized SQL mode: relevance-ranked FULLTEXT lookup instead of leading-wildcard LIKE
+    // scans. The count query is answered from the same FULLTEXT index.
+    @Query(value = "SELECT * FROM products WHERE MATCH(name, description) AGAINST (:query IN NATURAL LANGUAGE MODE) " +
+                   "AND (:category IS NULL OR category = :category) " +
+                   "AND (:minPrice IS NULL OR price >= :minPrice) " +
+                   "AND (:maxPrice IS NULL OR price <= :maxPrice)",
+           countQuery = "SELECT COUNT(*) FROM products WHERE MATCH(name, description) AGAINST (:query IN NATURAL LANGUAGE MODE) " +
+                        "AND (:category IS NULL OR category = :category) " +
+                        "AND (:minPrice IS NULL OR price >= :minPrice) " +
+                        "AND (:maxPrice IS NULL OR price <= :maxPrice)",
+           nativeQuery = true)
+    Page<Product> searchFullText(@Param("query") String query,
+                                 @Param("category") String category,
+                                 @Param("minPrice") Double minPrice,
+                                 @Param("maxPrice") Double maxPrice,
+                                 Pageable pageable);
+
+    // Lean read mode: the same lookups as above, selected straight into ProductView so no
+    // entities are materialized or tracked by the persistence context.
+    @Query(value = "SELECT new com.example.searchcomparison.model.ProductView(p.id, p.name, p.description, p.category, p.price) " +
+                   "FROM Product p WHERE LOWER(p.name) = LOWER(:query)",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE LOWER(p.name) = LOWER(:query)")
+    Page<ProductView> searchExactProductViews(@Param("query") String query, Pageable pageable);
+
+    @Query(value = "SELECT new com.example.searchcomparison.model.ProductView(p.id, p.name, p.description, p.category, p.price) " +
+                   "FROM Product p WHERE p.name = :query",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.name = :query")
+    Page<ProductView> searchExactProductViewsIndexed(@Param("query") String query, Pageable pageable);
+
+    @Query(value = "SELECT id, name, description, category, price FROM products " +
+                   "WHERE MATCH(name, description) AGAINST (:query IN NATURAL LANGUAGE MODE) " +
+                   "AND (:category IS NULL OR category = :category) " +
+                   "AND (:minPrice IS NULL OR price >= :minPrice) " +
+                   "AND (:maxPrice IS NULL OR price <= :maxPrice)",
+           countQuery = "SELECT COUNT(*) FROM products WHERE MATCH(name, description) AGAINST (:query IN NATURAL LANGUAGE MODE) " +
+                        "AND (:category IS NULL OR category = :category) " +
+                        "AND (:minPrice IS NULL OR price >= :minPrice) " +
+                        "AND (:maxPrice IS NULL OR price <= :maxPrice)",
+           nativeQuery = true)
+    Page<ProductSummary> searchFullTextSummaries(@Param("query") String query,
+                                                @Param("category") String category,
+                                                @Param("minPrice") Double minPrice,
+                                                @Param("maxPrice") Double maxPrice,
+                                                Pageable pageable);
+
+    // Keyset page for streaming reads: seeks on the primary key instead of OFFSET,
+    // so every page costs the same no matter how deep into the table we are.
+    @Query("SELECT p FROM Product p WHERE p.id > :lastId ORDER BY p.id ASC")
+    List<Product> findNextPage(@Param("lastId") Long lastId, Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.example.searchcomparison.repository;
+
+import com.example.searchcomparison.model.Product;
+import com.example.searchcomparison.model.ProductSearchRequest;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SQL counterpart of the Elasticsearch filter clauses. Price and category are compared
+ * on the bare columns, so the {@code (category, price)} index can serve them.
+ */
+public final class ProductSpecifications {
+
+    private ProductSpecifications() {
+    }
+
+    public static Specification<Product> matching(ProductSearchRequest request) {
+        return matching(request, false);
+    }
+
+    /**
+     * @param indexedName compare {@code name} as is, relying on its case-insensitive
+     *                    collation, instead of through {@code LOWER()} which defeats the index
+     */
+    public static Specification<Product> matching(ProductSearchRequest request, boolean indexedName) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (request.hasText()) {
+                predicates.add(indexedName
+                        ? cb.equal(root.get("name"), request.query())
+                        : cb.equal(cb.lower(root.get("name")), request.query().toLowerCase()));
+            }
+            if (request.category() != null) {
+                predicates.add(cb.equal(root.get("category"), request.category()));
+            }
+            if (request.minPrice() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("price"), request.minPrice()));
+            }
+            if (request.maxPrice() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("price"), request.maxPrice()));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
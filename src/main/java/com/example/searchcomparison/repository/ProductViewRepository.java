@@ -0,0 +1,25 @@
+package com.example.searchcomparison.repository;
+
+import com.example.searchcomparison.model.Facets;
+import com.example.searchcomparison.model.Product;
+import com.example.searchcomparison.model.ProductView;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Projection queries that Spring Data cannot derive: a {@link Specification} whose rows
+ * are selected straight into {@link ProductView} rather than loaded as entities, and the
+ * {@code GROUP BY} queries behind the search facets.
+ */
+public interface ProductViewRepository {
+
+    Page<ProductView> findViews(Specification<Product> specification, Pageable pageable);
+
+    /** Category counts and price histogram over every row the specification matches. */
+    Facets findFacets(Specification<Product> specification, int categorySize, double priceInterval);
+
+    /** The same facets over the rows matched by the optimized mode's FULLTEXT search. */
+    Facets findFullTextFacets(String query, String category, Double minPrice, Double maxPrice,
+                              int categorySize, double priceInterval);
+}
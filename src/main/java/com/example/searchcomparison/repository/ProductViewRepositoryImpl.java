@@ -0,0 +1,149 @@
+package com.example.searchcomparison.repository;
+
+import com.example.searchcomparison.model.Facets;
+import com.example.searchcomparison.model.Product;
+import com.example.searchcomparison.model.ProductView;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class ProductViewRepositoryImpl implements ProductViewRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<ProductView> findViews(Specification<Product> specification, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<ProductView> select = cb.createQuery(ProductView.class);
+        Root<Product> root = select.from(Product.class);
+        select.select(cb.construct(ProductView.class,
+                root.get("id"), root.get("name"), root.get("description"), root.get("category"), root.get("price")));
+        Predicate predicate = specification.toPredicate(root, select, cb);
+        if (predicate != null) {
+            select.where(predicate);
+        }
+        if (pageable.getSort().isSorted()) {
+            select.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+        }
+
+        TypedQuery<ProductView> query = entityManager.createQuery(select);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        List<ProductView> content = query.getResultList();
+
+        // Only runs the count when the page alone cannot tell the total
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(specification));
+    }
+
+    @Override
+    public Facets findFacets(Specification<Product> specification, int categorySize, double priceInterval) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<Tuple> categoryQuery = cb.createTupleQuery();
+        Root<Product> categoryRoot = categoryQuery.from(Product.class);
+        Path<String> category = categoryRoot.get("category");
+        Expression<Long> categoryCount = cb.count(categoryRoot);
+        categoryQuery.multiselect(category, categoryCount)
+                .where(and(cb, specification.toPredicate(categoryRoot, categoryQuery, cb), cb.isNotNull(category)))
+                .groupBy(category)
+                .orderBy(cb.desc(categoryCount), cb.asc(category));
+        List<Facets.CategoryCount> categories = new ArrayList<>();
+        for (Tuple row : entityManager.createQuery(categoryQuery).setMaxResults(categorySize).getResultList()) {
+            categories.add(new Facets.CategoryCount(row.get(0, String.class), row.get(1, Long.class)));
+        }
+
+        CriteriaQuery<Tuple> priceQuery = cb.createTupleQuery();
+        Root<Product> priceRoot = priceQuery.from(Product.class);
+        Path<Double> price = priceRoot.get("price");
+        // A literal rather than a bind parameter, so the SELECT and GROUP BY expressions are identical
+        Expression<Number> bucket = cb.floor(cb.quot(price, cb.literal(priceInterval)));
+        priceQuery.multiselect(bucket, cb.count(priceRoot))
+                .where(and(cb, specification.toPredicate(priceRoot, priceQuery, cb), cb.isNotNull(price)))
+                .groupBy(bucket)
+                .orderBy(cb.asc(bucket));
+        List<Facets.PriceBucket> prices = new ArrayList<>();
+        for (Tuple row : entityManager.createQuery(priceQuery).getResultList()) {
+            prices.add(priceBucket((Number) row.get(0), (Number) row.get(1), priceInterval));
+        }
+        return new Facets(categories, prices);
+    }
+
+    @Override
+    public Facets findFullTextFacets(String query, String category, Double minPrice, Double maxPrice,
+                                     int categorySize, double priceInterval) {
+        String matching = "MATCH(name, description) AGAINST (:query IN NATURAL LANGUAGE MODE) "
+                + "AND (:category IS NULL OR category = :category) "
+                + "AND (:minPrice IS NULL OR price >= :minPrice) "
+                + "AND (:maxPrice IS NULL OR price <= :maxPrice)";
+
+        List<Facets.CategoryCount> categories = new ArrayList<>();
+        for (Object row : fullTextQuery("SELECT category, COUNT(*) AS matches FROM products WHERE " + matching
+                        + " AND category IS NOT NULL GROUP BY category ORDER BY matches DESC, category",
+                query, category, minPrice, maxPrice)
+                .setMaxResults(categorySize)
+                .getResultList()) {
+            Object[] columns = (Object[]) row;
+            categories.add(new Facets.CategoryCount((String) columns[0], ((Number) columns[1]).longValue()));
+        }
+
+        List<Facets.PriceBucket> prices = new ArrayList<>();
+        for (Object row : fullTextQuery("SELECT FLOOR(price / :interval) AS bucket, COUNT(*) FROM products WHERE "
+                        + matching + " AND price IS NOT NULL GROUP BY bucket ORDER BY bucket",
+                query, category, minPrice, maxPrice)
+                .setParameter("interval", priceInterval)
+                .getResultList()) {
+            Object[] columns = (Object[]) row;
+            prices.add(priceBucket((Number) columns[0], (Number) columns[1], priceInterval));
+        }
+        return new Facets(categories, prices);
+    }
+
+    private Query fullTextQuery(String sql, String query, String category, Double minPrice, Double maxPrice) {
+        return entityManager.createNativeQuery(sql)
+                .setParameter("query", query)
+                .setParameter("category", category)
+                .setParameter("minPrice", minPrice)
+                .setParameter("maxPrice", maxPrice);
+    }
+
+    private static Facets.PriceBucket priceBucket(Number bucket, Number count, double priceInterval) {
+        double from = bucket.doubleValue() * priceInterval;
+        return new Facets.PriceBucket(from, from + priceInterval, count.longValue());
+    }
+
+    private static Predicate and(CriteriaBuilder cb, Predicate specification, Predicate notNull) {
+        return specification == null ? notNull : cb.and(specification, notNull);
+    }
+
+    private long count(Specification<Product> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> count = cb.createQuery(Long.class);
+        Root<Product> root = count.from(Product.class);
+        count.select(cb.count(root));
+        Predicate predicate = specification.toPredicate(root, count, cb);
+        if (predicate != null) {
+            count.where(predicate);
+        }
+        return entityManager.createQuery(count).getSingleResult();
+    }
+}
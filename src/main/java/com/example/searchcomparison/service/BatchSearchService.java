@@ -0,0 +1,249 @@
+package com.example.searchcomparison.service;
+
+import com.example.searchcomparison.model.BatchSearchQuery;
+import com.example.searchcomparison.model.BatchSearchResponse;
+import com.example.searchcomparison.model.ProductSearchRequest;
+import com.example.searchcomparison.model.ProductSource;
+import com.example.searchcomparison.model.ProductView;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilter;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs many searches in one call for batch jobs. All Elasticsearch queries go out as a
+ * single {@code _msearch} request, while the SQL queries run side by side on a dedicated
+ * pool, so a batch costs roughly one round trip per backend instead of one per query.
+ */
+@Service
+public class BatchSearchService {
+
+    private static final Logger log = Logger.getLogger(BatchSearchService.class.getName());
+
+    private final ProductService productService;
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final ProductQueryBuilder productQueryBuilder;
+    private final ProductHitMapper productHitMapper;
+    private final IndexReadiness indexReadiness;
+    private final ElasticsearchCircuitBreaker circuitBreaker;
+    private final ElasticsearchConcurrencyLimiter concurrencyLimiter;
+    private final SearchMetrics searchMetrics;
+    private final SampledLog failureLog = new SampledLog(log, 10, TimeUnit.SECONDS);
+    private final ExecutorService sqlExecutor;
+
+    @Value("${search.batch.max-queries:100}")
+    private int maxQueries;
+
+    @Value("${search.batch.max-size:100}")
+    private int maxSize;
+
+    @Value("${search.batch.timeout-ms:10000}")
+    private long timeoutMillis;
+
+    @Value("${search.elasticsearch.track-total-hits:10000}")
+    private int trackTotalHitsUpTo;
+
+    @Autowired
+    public BatchSearchService(ProductService productService, ElasticsearchOperations elasticsearchOperations,
+                              ProductQueryBuilder productQueryBuilder, ProductHitMapper productHitMapper,
+                              IndexReadiness indexReadiness, ElasticsearchCircuitBreaker circuitBreaker,
+                              ElasticsearchConcurrencyLimiter concurrencyLimiter, SearchMetrics searchMetrics,
+                              @Value("${search.batch.sql-threads:8}") int sqlThreads) {
+        this.productService = productService;
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.productQueryBuilder = productQueryBuilder;
+        this.productHitMapper = productHitMapper;
+        this.indexReadiness = indexReadiness;
+        this.circuitBreaker = circuitBreaker;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.searchMetrics = searchMetrics;
+        this.sqlExecutor = Executors.newFixedThreadPool(sqlThreads, new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "search-batch-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    public int maxQueries() {
+        return maxQueries;
+    }
+
+    public BatchSearchResponse search(List<BatchSearchQuery> queries) {
+        List<ProductSearchRequest> requests = queries.stream()
+            .map(query -> query.toRequest(maxSize))
+            .toList();
+        searchMetrics.batchSize().record(requests.size());
+        long startTime = System.nanoTime();
+
+        // Queue the SQL queries first so they run while the _msearch is in flight
+        long sqlDeadline = startTime + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        List<CompletableFuture<SqlResult>> sqlResults = new ArrayList<>(requests.size());
+        for (ProductSearchRequest request : requests) {
+            sqlResults.add(CompletableFuture.supplyAsync(() -> searchSql(request, sqlDeadline), sqlExecutor));
+        }
+
+        ElasticResult elastic = searchMetrics.batch(SearchMetrics.Backend.ELASTICSEARCH)
+            .record(() -> searchElasticsearch(requests));
+
+        List<BatchSearchResponse.Item> items = new ArrayList<>(requests.size());
+        long sqlFinished = startTime;
+        for (int i = 0; i < requests.size(); i++) {
+            SqlResult sql = await(sqlResults.get(i), startTime);
+            sqlFinished = Math.max(sqlFinished, sql.finishedAt());
+            SearchHits<ProductSource> hits = elastic.hits() != null ? elastic.hits().get(i) : null;
+            items.add(new BatchSearchResponse.Item(requests.get(i),
+                hits != null ? productHitMapper.toViews(hits) : Collections.emptyList(),
+                hits != null ? hits.getTotalHits() : null,
+                sql.page() != null ? sql.page().getContent() : Collections.emptyList(),
+                sql.page() != null ? sql.page().getTotalElements() : null,
+                sql.elapsedNanos() >= 0 ? TimeUnit.NANOSECONDS.toMillis(sql.elapsedNanos()) : null,
+                sql.error()));
+        }
+        searchMetrics.batch(SearchMetrics.Backend.SQL).record(sqlFinished - startTime, TimeUnit.NANOSECONDS);
+
+        return new BatchSearchResponse(
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime),
+            TimeUnit.NANOSECONDS.toMillis(elastic.elapsedNanos()),
+            TimeUnit.NANOSECONDS.toMillis(sqlFinished - startTime),
+            elastic.error(),
+            items);
+    }
+
+    /**
+     * One {@code _msearch} for the whole batch. Entries without text or filters are left
+     * out, as on the search page, and keep a null slot in the returned list.
+     */
+    private ElasticResult searchElasticsearch(List<ProductSearchRequest> requests) {
+        long startTime = System.nanoTime();
+        if (!indexReadiness.isReady()) {
+            return new ElasticResult(null, 0, "Elasticsearch is unavailable");
+        }
+        List<NativeQuery> queries = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            ProductSearchRequest request = requests.get(i);
+            if (request.hasText() || request.hasFilters()) {
+                queries.add(productQueryBuilder.build(request)
+                    .withTrackTotalHitsUpTo(trackTotalHitsUpTo)
+                    .withRequestCache(true)
+                    .withSourceFilter(new FetchSourceFilter(ProductSource.FIELDS, new String[0]))
+                    .withPageable(PageRequest.of(0, request.size()))
+                    .build());
+                positions.add(i);
+            }
+        }
+        List<SearchHits<ProductSource>> hits = new ArrayList<>(Collections.nCopies(requests.size(), null));
+        if (queries.isEmpty()) {
+            return new ElasticResult(hits, 0, null);
+        }
+        // Batches only use the part of the limit that page searches leave free
+        ElasticsearchConcurrencyLimiter.Permit permit =
+            concurrencyLimiter.tryAcquire(ElasticsearchConcurrencyLimiter.Priority.BATCH);
+        if (permit == null) {
+            searchMetrics.fallback(SearchMetrics.Backend.ELASTICSEARCH, SearchMetrics.FallbackReason.OVERLOAD);
+            return new ElasticResult(null, 0, "Elasticsearch is busy with interactive searches");
+        }
+        // Same protocol as a page search: every acquired trial is followed by a record()
+        if (!circuitBreaker.tryAcquire()) {
+            permit.cancel();
+            return new ElasticResult(null, 0, "Elasticsearch is unavailable");
+        }
+        boolean success = false;
+        try {
+            // The (queries, class, index) overload addresses the class's own index instead of
+            // the given one, so the index is passed per query
+            List<SearchHits<?>> responses = elasticsearchOperations.multiSearch(queries,
+                Collections.nCopies(queries.size(), ProductSource.class),
+                Collections.nCopies(queries.size(), IndexCoordinates.of(ProductService.INDEX_NAME)));
+            for (int i = 0; i < responses.size(); i++) {
+                @SuppressWarnings("unchecked")
+                SearchHits<ProductSource> response = (SearchHits<ProductSource>) responses.get(i);
+                hits.set(positions.get(i), response);
+            }
+            success = true;
+            return new ElasticResult(hits, System.nanoTime() - startTime, null);
+        } catch (RuntimeException e) {
+            searchMetrics.error(SearchMetrics.Backend.ELASTICSEARCH);
+            failureLog.log(Level.WARNING, () -> "❌ Batch _msearch of " + queries.size() + " queries failed", e);
+            return new ElasticResult(null, System.nanoTime() - startTime, "Elasticsearch search failed");
+        } finally {
+            permit.release(success);
+            circuitBreaker.record(success);
+        }
+    }
+
+    /**
+     * One SQL query of the batch, with the batch deadline as its statement timeout, so a
+     * query the batch gave up on is cancelled by the database instead of holding a pool
+     * thread. A query still queued at the deadline is not started.
+     */
+    private SqlResult searchSql(ProductSearchRequest request, long deadlineNanos) {
+        long startTime = System.nanoTime();
+        if (startTime >= deadlineNanos) {
+            return SqlResult.failed("SQL query exceeded " + timeoutMillis + " ms");
+        }
+        Page<ProductView> page = productService.withSqlDeadline(deadlineNanos,
+            () -> productService.searchTraditional(request, PageRequest.of(0, request.size())));
+        long finishedAt = System.nanoTime();
+        return new SqlResult(page, finishedAt - startTime, finishedAt, null);
+    }
+
+    /** Waits for one SQL query until the batch deadline, measured from the start of the batch. */
+    private SqlResult await(CompletableFuture<SqlResult> future, long startTime) {
+        long remainingNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis) - (System.nanoTime() - startTime);
+        try {
+            return future.get(Math.max(remainingNanos, 0L), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            return SqlResult.failed("SQL query exceeded " + timeoutMillis + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return SqlResult.failed("Interrupted");
+        } catch (ExecutionException e) {
+            searchMetrics.error(SearchMetrics.Backend.SQL);
+            failureLog.log(Level.WARNING, () -> "❌ Batch SQL query failed", e.getCause());
+            return SqlResult.failed("SQL search failed");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sqlExecutor.shutdownNow();
+    }
+
+    private record ElasticResult(List<SearchHits<ProductSource>> hits, long elapsedNanos, String error) {
+    }
+
+    private record SqlResult(Page<ProductView> page, long elapsedNanos, long finishedAt, String error) {
+
+        static SqlResult failed(String error) {
+            return new SqlResult(null, -1, System.nanoTime(), error);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.searchcomparison.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.logging.Logger;
+
+/**
+ * Circuit breaker for the Elasticsearch search leg.
+ *
+ * <p>While closed, the outcome of the last {@code window-size} legs is kept; once at least
+ * {@code minimum-calls} of them are known and the share of timeouts and failures reaches
+ * {@code failure-rate-threshold} percent, the breaker opens. An open breaker rejects the
+ * leg outright, so pages are answered from SQL alone without waiting for a deadline. After
+ * {@code open-duration-ms} it lets {@code half-open-calls} trial legs through: if they all
+ * succeed it closes, a single failure opens it again.
+ */
+@Component
+public class ElasticsearchCircuitBreaker {
+
+    private static final Logger log = Logger.getLogger(ElasticsearchCircuitBreaker.class.getName());
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int failureRateThreshold;
+    private final int minimumCalls;
+    private final long openDurationNanos;
+    private final int halfOpenCalls;
+
+    // Ring buffer of recent outcomes while closed; true marks a failure
+    private final boolean[] window;
+    private int windowPosition;
+    private int windowCount;
+    private int windowFailures;
+
+    private State state = State.CLOSED;
+    private long stateSince = System.nanoTime();
+    private int trialsIssued;
+    private int trialsSucceeded;
+
+    @Autowired
+    public ElasticsearchCircuitBreaker(MeterRegistry meterRegistry,
+                                       @Value("${elasticsearch.circuit-breaker.enabled:true}") boolean enabled,
+                                       @Value("${elasticsearch.circuit-breaker.failure-rate-threshold:50}") int failureRateThreshold,
+                                       @Value("${elasticsearch.circuit-breaker.window-size:20}") int windowSize,
+                                       @Value("${elasticsearch.circuit-breaker.minimum-calls:10}") int minimumCalls,
+                                       @Value("${elasticsearch.circuit-breaker.open-duration-ms:10000}") long openDurationMillis,
+                                       @Value("${elasticsearch.circuit-breaker.half-open-calls:3}") int halfOpenCalls) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.failureRateThreshold = failureRateThreshold;
+        this.window = new boolean[Math.max(windowSize, 1)];
+        this.minimumCalls = Math.min(Math.max(minimumCalls, 1), window.length);
+        this.openDurationNanos = openDurationMillis * 1_000_000L;
+        this.halfOpenCalls = Math.max(halfOpenCalls, 1);
+        Gauge.builder("search.elasticsearch.circuit.state", this, breaker -> breaker.state().ordinal())
+                .description("Elasticsearch circuit breaker state: 0 closed, 1 open, 2 half-open")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Asks for permission to run one Elasticsearch leg. Every granted call must be followed
+     * by {@link #record(boolean)}.
+     */
+    public synchronized boolean tryAcquire() {
+        if (!enabled) {
+            return true;
+        }
+        long now = System.nanoTime();
+        if (state == State.OPEN && now - stateSince >= openDurationNanos) {
+            transitionTo(State.HALF_OPEN, now);
+        } else if (state == State.HALF_OPEN && now - stateSince >= openDurationNanos) {
+            // Trials granted earlier never reported back; start a fresh round
+            transitionTo(State.HALF_OPEN, now);
+        }
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> false;
+            case HALF_OPEN -> {
+                if (trialsIssued >= halfOpenCalls) {
+                    yield false;
+                }
+                trialsIssued++;
+                yield true;
+            }
+        };
+    }
+
+    /** Records the outcome of a leg that {@link #tryAcquire()} let through. */
+    public synchronized void record(boolean success) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        switch (state) {
+            case CLOSED -> {
+                if (windowCount == window.length) {
+                    windowFailures -= window[windowPosition] ? 1 : 0;
+                } else {
+                    windowCount++;
+                }
+                window[windowPosition] = !success;
+                windowFailures += success ? 0 : 1;
+                windowPosition = (windowPosition + 1) % window.length;
+                if (windowCount >= minimumCalls && windowFailures * 100 >= failureRateThreshold * windowCount) {
+                    int failures = windowFailures;
+                    int calls = windowCount;
+                    transitionTo(State.OPEN, now);
+                    log.warning("🔌 Elasticsearch circuit opened after " + failures + " failed of the last " + calls
+                        + " search legs; serving SQL results only for " + openDurationNanos / 1_000_000 + " ms");
+                }
+            }
+            case HALF_OPEN -> {
+                if (!success) {
+                    transitionTo(State.OPEN, now);
+                    log.warning("🔌 Elasticsearch circuit re-opened: trial search leg failed");
+                } else if (++trialsSucceeded >= halfOpenCalls) {
+                    transitionTo(State.CLOSED, now);
+                    log.info("✅ Elasticsearch circuit closed: trial search legs succeeded");
+                }
+            }
+            case OPEN -> {
+                // A leg granted before the breaker opened; its outcome no longer matters
+            }
+        }
+    }
+
+    /** Whether callers that cannot take part in trials, such as suggestions, should skip Elasticsearch. */
+    public synchronized boolean isOpen() {
+        return enabled && state == State.OPEN && System.nanoTime() - stateSince < openDurationNanos;
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    private void transitionTo(State next, long now) {
+        if (state != next) {
+            meterRegistry.counter("search.elasticsearch.circuit.transitions",
+                "to", next.name().toLowerCase(Locale.ROOT).replace('_', '-')).increment();
+        }
+        state = next;
+        stateSince = now;
+        trialsIssued = 0;
+        trialsSucceeded = 0;
+        windowPosition = 0;
+        windowCount = 0;
+        windowFailures = 0;
+    }
+}
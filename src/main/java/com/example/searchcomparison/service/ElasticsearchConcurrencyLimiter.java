@@ -0,0 +1,144 @@
+package com.example.searchcomparison.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Adaptive limit on concurrent Elasticsearch search requests (AIMD).
+ *
+ * <p>A search that would go over the limit is not queued. It is turned away at once and
+ * the page is served without Elasticsearch, so a slow cluster cannot tie up every search
+ * thread. A request that fails, or an interactive request slower than
+ * {@code latency-threshold-ms}, lowers the limit by {@code backoff-ratio}. That happens at
+ * most once per round of requests: only a request started after the last decrease can
+ * lower it again. Requests that complete in time raise the limit by about one per round,
+ * but only while at least half of the limit is in use.
+ *
+ * <p>Batch callers and hedged requests only start while fewer than
+ * {@code batch-share} of the limit are in flight. The rest is kept for interactive page
+ * searches. Their latency does not count against the limit, since a batch is slower by
+ * nature; their failures do.
+ */
+@Component
+public class ElasticsearchConcurrencyLimiter {
+
+    private static final Logger log = Logger.getLogger(ElasticsearchConcurrencyLimiter.class.getName());
+
+    public enum Priority { INTERACTIVE, BATCH }
+
+    /** One admitted request; {@link #release(boolean)} it exactly once when it completes. */
+    public final class Permit {
+        private final Priority priority;
+        private final long startNanos = System.nanoTime();
+        private final int inFlightAtStart;
+        private boolean released;
+
+        private Permit(Priority priority, int inFlightAtStart) {
+            this.priority = priority;
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        /** Returns the slot and feeds the request's latency and outcome into the limit. */
+        public void release(boolean success) {
+            onRelease(this, success, true);
+        }
+
+        /** Returns the slot of a request that was never sent, without affecting the limit. */
+        public void cancel() {
+            onRelease(this, true, false);
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final SampledLog limitLog = new SampledLog(log, 10, TimeUnit.SECONDS);
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final double batchShare;
+
+    private double limit;
+    private int inFlight;
+    private long lastDecreaseNanos = System.nanoTime();
+
+    @Autowired
+    public ElasticsearchConcurrencyLimiter(MeterRegistry meterRegistry,
+                                           @Value("${search.limiter.enabled:true}") boolean enabled,
+                                           @Value("${search.limiter.initial-limit:20}") int initialLimit,
+                                           @Value("${search.limiter.min-limit:4}") int minLimit,
+                                           @Value("${search.limiter.max-limit:200}") int maxLimit,
+                                           @Value("${search.limiter.latency-threshold-ms:1000}") long latencyThresholdMillis,
+                                           @Value("${search.limiter.backoff-ratio:0.9}") double backoffRatio,
+                                           @Value("${search.limiter.batch-share:0.5}") double batchShare) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.minLimit = Math.max(minLimit, 1);
+        this.maxLimit = Math.max(maxLimit, this.minLimit);
+        this.limit = Math.min(Math.max(initialLimit, this.minLimit), this.maxLimit);
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMillis);
+        this.backoffRatio = Math.min(Math.max(backoffRatio, 0.1), 1.0);
+        this.batchShare = Math.min(Math.max(batchShare, 0.0), 1.0);
+        Gauge.builder("search.elasticsearch.limiter.limit", this, ElasticsearchConcurrencyLimiter::limit)
+                .description("Current limit on concurrent Elasticsearch search requests")
+                .register(meterRegistry);
+        Gauge.builder("search.elasticsearch.limiter.in-flight", this, ElasticsearchConcurrencyLimiter::inFlight)
+                .description("Elasticsearch search requests admitted and not yet completed")
+                .register(meterRegistry);
+    }
+
+    /** Admits one request, or returns {@code null} when it should be shed. */
+    public synchronized Permit tryAcquire(Priority priority) {
+        int allowed = priority == Priority.INTERACTIVE
+            ? (int) limit
+            : Math.max((int) (limit * batchShare), 1);
+        if (enabled && inFlight >= allowed) {
+            meterRegistry.counter("search.elasticsearch.limiter.rejected",
+                "priority", priority.name().toLowerCase(Locale.ROOT)).increment();
+            return null;
+        }
+        return new Permit(priority, ++inFlight);
+    }
+
+    public synchronized int limit() {
+        return (int) limit;
+    }
+
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    private synchronized void onRelease(Permit permit, boolean success, boolean sample) {
+        if (permit.released) {
+            return;
+        }
+        permit.released = true;
+        inFlight--;
+        if (!enabled || !sample) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        boolean slow = permit.priority == Priority.INTERACTIVE && now - permit.startNanos > latencyThresholdNanos;
+        if (!success || slow) {
+            // Requests started before the last decrease saw the old limit; let them not count twice
+            if (permit.startNanos - lastDecreaseNanos > 0 && limit > minLimit) {
+                limit = Math.max(limit * backoffRatio, minLimit);
+                lastDecreaseNanos = now;
+                int lowered = (int) limit;
+                limitLog.log(Level.WARNING, () -> "🚦 Elasticsearch search limit lowered to " + lowered
+                    + " after a " + (success ? "slow" : "failed") + " request");
+            }
+        } else if (permit.inFlightAtStart * 2 >= limit) {
+            limit = Math.min(limit + 1.0 / limit, maxLimit);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.searchcomparison.service;
+
+/**
+ * Upload formats accepted by {@link ProductIngestService}.
+ *
+ * <ul>
+ *   <li>{@code CSV}: RFC 4180, with a header row naming the columns. Quoted fields may
+ *   contain commas, doubled quotes and line breaks.</li>
+ *   <li>{@code NDJSON}: one JSON object per line.</li>
+ * </ul>
+ *
+ * Both carry {@code name}, {@code description}, {@code category} and {@code price};
+ * other columns, including {@code id}, are ignored because MySQL assigns the ids.
+ */
+public enum ImportFormat { CSV, NDJSON }
@@ -0,0 +1,47 @@
+package com.example.searchcomparison.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.logging.Logger;
+
+/**
+ * Tracks whether the Elasticsearch index can serve queries. Until it is ready the
+ * search page answers from SQL only instead of showing a half-populated index.
+ */
+@Component
+public class IndexReadiness {
+
+    public enum State { NOT_STARTED, WARMING, READY, FAILED }
+
+    private static final Logger log = Logger.getLogger(IndexReadiness.class.getName());
+
+    private volatile State state = State.NOT_STARTED;
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean isReady() {
+        return state == State.READY;
+    }
+
+    public void markWarming() {
+        transitionTo(State.WARMING);
+    }
+
+    public void markReady() {
+        transitionTo(State.READY);
+    }
+
+    public void markFailed() {
+        transitionTo(State.FAILED);
+    }
+
+    private void transitionTo(State next) {
+        State previous = state;
+        state = next;
+        if (previous != next) {
+            log.info("🔁 Elasticsearch index state: " + previous + " -> " + next);
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.example.searchcomparison.service;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.HealthStatus;
+import co.elastic.clients.elasticsearch.indices.update_aliases.Action;
+import com.example.searchcomparison.config.ElasticsearchConfig;
+import com.example.searchcomparison.model.Product;
+import com.example.searchcomparison.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.index.PutIndexTemplateRequest;
+import org.springframework.data.elasticsearch.core.index.Settings;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Manages the versioned {@code products_v{N}} indices behind the {@code products}
+ * alias that every query reads from.
+ *
+ * <p>A new version is created with replicas and refresh disabled so the bulk load
+ * does not pay for either, then restored, force-merged and swapped in with a single
+ * atomic alias update. Older versions stay around for rollback.
+ *
+ * <p>Every version is created from the {@code products} index template, which carries
+ * the mapping, the analysis chain, the index sort and a shard count sized for the
+ * catalog. The template also covers a bare {@code products} index that Elasticsearch
+ * creates on the first write when no alias exists yet.
+ */
+@Component
+public class IndexVersionManager {
+
+    private static final Logger log = Logger.getLogger(IndexVersionManager.class.getName());
+    private static final String VERSION_SEPARATOR = "_v";
+    private static final long BYTES_PER_GB = 1024L * 1024 * 1024;
+
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final ElasticsearchClient elasticsearchClient;
+    private final ProductRepository productRepository;
+
+    @Value("${indexing.replicas:1}")
+    private int replicas;
+
+    @Value("${indexing.refresh-interval:1s}")
+    private String refreshInterval;
+
+    @Value("${indexing.retained-versions:2}")
+    private int retainedVersions;
+
+    @Value("${indexing.health-timeout:60s}")
+    private String healthTimeout;
+
+    @Value("${indexing.shards.count:0}")
+    private int fixedShardCount;
+
+    @Value("${indexing.shards.target-size-gb:30}")
+    private double shardTargetSizeGb;
+
+    @Value("${indexing.shards.max-docs:200000000}")
+    private long shardMaxDocs;
+
+    @Value("${indexing.shards.max:16}")
+    private int maxShards;
+
+    @Value("${indexing.shards.bytes-per-doc:1024}")
+    private long defaultBytesPerDocument;
+
+    @Autowired
+    public IndexVersionManager(@Qualifier(ElasticsearchConfig.BULK_OPERATIONS) ElasticsearchOperations elasticsearchOperations,
+                               @Qualifier(ElasticsearchConfig.BULK_CLIENT) ElasticsearchClient elasticsearchClient,
+                               ProductRepository productRepository) {
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.elasticsearchClient = elasticsearchClient;
+        this.productRepository = productRepository;
+    }
+
+    public String aliasName() {
+        return ProductService.INDEX_NAME;
+    }
+
+    /** Creates the next {@code products_v{N}} index, tuned for a bulk load. */
+    public String createNextVersion() {
+        int next = listVersions().stream().mapToInt(IndexVersionManager::versionOf).max().orElse(0) + 1;
+        String indexName = aliasName() + VERSION_SEPARATOR + next;
+
+        // Explicit settings win over the template's, so only the bulk-load overrides differ
+        Settings settings = putIndexTemplate();
+        settings.put("index.number_of_replicas", 0);
+        settings.put("index.refresh_interval", "-1");
+        IndexOperations indexOps = elasticsearchOperations.indexOps(IndexCoordinates.of(indexName));
+        indexOps.create(settings, indexOps.createMapping(Product.class));
+
+        log.info("🆕 Created " + indexName + " for bulk loading (" + settings.get("index.number_of_shards")
+                + " shards, replicas 0, refresh disabled)");
+        return indexName;
+    }
+
+    /**
+     * Creates or replaces the {@code products} index template from the {@link Product}
+     * mapping and settings, with the shard count from {@link #chooseShardCount()}.
+     * Returns the flattened settings the template was given.
+     */
+    public Settings putIndexTemplate() {
+        String alias = aliasName();
+        IndexOperations indexOps = elasticsearchOperations.indexOps(IndexCoordinates.of(alias));
+        Settings settings = indexOps.createSettings(Product.class).flatten();
+        settings.put("index.number_of_shards", chooseShardCount());
+        indexOps.putIndexTemplate(PutIndexTemplateRequest.builder()
+                .withName(alias)
+                .withIndexPatterns(alias, alias + VERSION_SEPARATOR + "*")
+                .withSettings(settings)
+                .withMapping(indexOps.createMapping(Product.class))
+                .build());
+        log.info("📐 Index template " + alias + " installed with " + settings.get("index.number_of_shards") + " shards");
+        return settings;
+    }
+
+    /**
+     * Primary shards for the next version: enough that no shard holds more than
+     * {@code indexing.shards.target-size-gb} or {@code indexing.shards.max-docs}, capped at
+     * {@code indexing.shards.max}. The size comes from the MySQL row count times the bytes
+     * per document of the live version, or {@code indexing.shards.bytes-per-doc} before
+     * there is one. {@code indexing.shards.count} overrides the estimate.
+     */
+    int chooseShardCount() {
+        if (fixedShardCount > 0) {
+            return fixedShardCount;
+        }
+        long documents = productRepository.count();
+        long bytesPerDocument = measuredBytesPerDocument().orElse(defaultBytesPerDocument);
+        long targetBytes = Math.max((long) (shardTargetSizeGb * BYTES_PER_GB), 1);
+        long bySize = divideRoundingUp(documents * bytesPerDocument, targetBytes);
+        long byCount = divideRoundingUp(documents, Math.max(shardMaxDocs, 1));
+        int shards = (int) Math.min(Math.max(Math.max(bySize, byCount), 1), Math.max(maxShards, 1));
+        log.info("📐 " + documents + " products at ~" + bytesPerDocument + " bytes each → " + shards + " shards");
+        return shards;
+    }
+
+    /** Primary store size per document of the live version, if it has any documents. */
+    private Optional<Long> measuredBytesPerDocument() {
+        try {
+            Optional<String> current = currentVersion();
+            if (current.isEmpty()) {
+                return Optional.empty();
+            }
+            var primaries = elasticsearchClient.indices()
+                    .stats(s -> s.index(current.get()).metric("docs", "store"))
+                    .indices().get(current.get()).primaries();
+            long documents = primaries.docs().count();
+            return documents > 0
+                    ? Optional.of(Math.max(primaries.store().sizeInBytes() / documents, 1))
+                    : Optional.empty();
+        } catch (IOException | RuntimeException e) {
+            log.log(Level.WARNING, "⚠️ Could not read the size of the live index, estimating shards from defaults", e);
+            return Optional.empty();
+        }
+    }
+
+    private static long divideRoundingUp(long dividend, long divisor) {
+        return (dividend + divisor - 1) / divisor;
+    }
+
+    /**
+     * Restores replicas and refresh on a freshly loaded index, merges it down to one
+     * segment and waits for the cluster to allocate it before it takes traffic.
+     */
+    public void finishBulkLoad(String indexName) throws IOException {
+        elasticsearchClient.indices().putSettings(p -> p
+                .index(indexName)
+                .settings(s -> s.refreshInterval(t -> t.time(refreshInterval))));
+        elasticsearchClient.indices().refresh(r -> r.index(indexName));
+
+        try {
+            elasticsearchClient.indices().forcemerge(f -> f.index(indexName).maxNumSegments(1L));
+        } catch (IOException e) {
+            // The merge keeps running on the cluster even if our request timed out.
+            log.log(Level.WARNING, "⚠️ Force-merge of " + indexName + " did not finish in time, continuing", e);
+        }
+
+        elasticsearchClient.indices().putSettings(p -> p
+                .index(indexName)
+                .settings(s -> s.numberOfReplicas(String.valueOf(replicas))));
+        HealthStatus wanted = replicas > 0 ? HealthStatus.Green : HealthStatus.Yellow;
+        var health = elasticsearchClient.cluster().health(h -> h
+                .index(indexName)
+                .waitForStatus(wanted)
+                .timeout(t -> t.time(healthTimeout)));
+        if (health.timedOut()) {
+            log.warning("⚠️ " + indexName + " is " + health.status() + " after " + healthTimeout + ", swapping anyway");
+        }
+    }
+
+    /**
+     * Points the alias at {@code indexName} in one atomic update. The very first swap
+     * also drops a concrete index that still carries the alias name.
+     */
+    public void swapAlias(String indexName) throws IOException {
+        String alias = aliasName();
+        List<Action> actions = new ArrayList<>();
+        actions.add(Action.of(a -> a.add(add -> add.index(indexName).alias(alias).isWriteIndex(true))));
+
+        Optional<String> current = currentVersion();
+        if (current.isPresent()) {
+            if (!current.get().equals(indexName)) {
+                actions.add(Action.of(a -> a.remove(r -> r.index(current.get()).alias(alias))));
+            }
+        } else if (elasticsearchClient.indices().exists(e -> e.index(alias)).value()) {
+            log.info("🔀 Replacing legacy concrete index " + alias + " with an alias");
+            actions.add(Action.of(a -> a.removeIndex(r -> r.index(alias))));
+        }
+
+        elasticsearchClient.indices().updateAliases(u -> u.actions(actions));
+        log.info("🔀 Alias " + alias + " now points at " + indexName
+                + current.map(previous -> " (was " + previous + ")").orElse(""));
+    }
+
+    /** Swaps the alias back to the newest retained version older than the current one. */
+    public Optional<String> rollback() throws IOException {
+        Optional<String> current = currentVersion();
+        if (current.isEmpty()) {
+            return Optional.empty();
+        }
+        int currentVersion = versionOf(current.get());
+        Optional<String> previous = listVersions().stream()
+                .filter(name -> versionOf(name) < currentVersion)
+                .max(Comparator.comparingInt(IndexVersionManager::versionOf));
+        if (previous.isPresent()) {
+            swapAlias(previous.get());
+        }
+        return previous;
+    }
+
+    /** Deletes versions beyond the retention count, never touching the live one. */
+    public List<String> pruneOldVersions() throws IOException {
+        Optional<String> current = currentVersion();
+        List<String> versions = listVersions();
+        versions.sort(Comparator.comparingInt(IndexVersionManager::versionOf).reversed());
+
+        List<String> deleted = new ArrayList<>();
+        int kept = 0;
+        for (String name : versions) {
+            if (current.map(name::equals).orElse(false)) {
+                continue;
+            }
+            if (kept < retainedVersions) {
+                kept++;
+                continue;
+            }
+            elasticsearchClient.indices().delete(d -> d.index(name));
+            deleted.add(name);
+        }
+        if (!deleted.isEmpty()) {
+            log.info("🧹 Deleted old index versions " + deleted);
+        }
+        return deleted;
+    }
+
+    public void delete(String indexName) throws IOException {
+        elasticsearchClient.indices().delete(d -> d.index(indexName));
+    }
+
+    /** The concrete index the alias currently resolves to, if the alias exists. */
+    public Optional<String> currentVersion() throws IOException {
+        String alias = aliasName();
+        if (!elasticsearchClient.indices().existsAlias(e -> e.name(alias)).value()) {
+            return Optional.empty();
+        }
+        return elasticsearchClient.indices().getAlias(g -> g.name(alias)).result().keySet().stream().findFirst();
+    }
+
+    public List<String> listVersions() {
+        try {
+            return new ArrayList<>(elasticsearchClient.indices()
+                    .get(g -> g.index(aliasName() + VERSION_SEPARATOR + "*"))
+                    .result().keySet());
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not list versions of " + aliasName(), e);
+        }
+    }
+
+    public boolean isVersion(String indexName) {
+        return indexName.startsWith(aliasName() + VERSION_SEPARATOR) && versionOf(indexName) > 0;
+    }
+
+    static int versionOf(String indexName) {
+        int separator = indexName.lastIndexOf(VERSION_SEPARATOR);
+        try {
+            return separator < 0 ? 0 : Integer.parseInt(indexName.substring(separator + VERSION_SEPARATOR.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
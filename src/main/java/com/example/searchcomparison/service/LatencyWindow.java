@@ -0,0 +1,49 @@
+package com.example.searchcomparison.service;
+
+import java.util.Arrays;
+
+/**
+ * The last few hundred latencies of one kind of request, for percentiles that follow
+ * the current state of the cluster rather than its whole history. The percentile is
+ * recomputed every {@value #REFRESH_EVERY} samples, not on every read.
+ */
+final class LatencyWindow {
+
+    private static final int REFRESH_EVERY = 16;
+
+    private final long[] samples;
+    private final double quantile;
+    private final int minimumSamples;
+    private int position;
+    private int count;
+    private int sinceRefresh;
+    private long cached = -1;
+
+    LatencyWindow(int size, double quantile, int minimumSamples) {
+        this.samples = new long[Math.max(size, 1)];
+        this.quantile = Math.min(Math.max(quantile, 0.0), 1.0);
+        this.minimumSamples = Math.min(Math.max(minimumSamples, 1), samples.length);
+    }
+
+    synchronized void record(long nanos) {
+        samples[position] = nanos;
+        position = (position + 1) % samples.length;
+        count = Math.min(count + 1, samples.length);
+        if (++sinceRefresh >= REFRESH_EVERY || cached < 0) {
+            sinceRefresh = 0;
+            cached = count < minimumSamples ? -1 : compute();
+        }
+    }
+
+    /** The configured percentile in nanoseconds, or -1 until enough samples are in. */
+    synchronized long percentile() {
+        return cached;
+    }
+
+    private long compute() {
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int rank = Math.max((int) Math.ceil(quantile * count) - 1, 0);
+        return sorted[Math.min(rank, count - 1)];
+    }
+}
@@ -0,0 +1,445 @@
+package com.example.searchcomparison.service;
+
+import com.example.searchcomparison.model.Facets;
+import com.example.searchcomparison.model.LucenePage;
+import com.example.searchcomparison.model.Product;
+import com.example.searchcomparison.model.ProductSearchRequest;
+import com.example.searchcomparison.model.ProductView;
+import com.example.searchcomparison.repository.ProductRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DoubleField;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.KeywordField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.CollectorManager;
+import org.apache.lucene.search.ControlledRealTimeReopenThread;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.MultiCollectorManager;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Scorable;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TopFieldCollector;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.util.NumericUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-process Lucene index over the same product fields as Elasticsearch, used as a
+ * selectable search engine and as the fallback while Elasticsearch cannot answer.
+ *
+ * <p>The index lives in an {@link MMapDirectory} under {@code search.lucene.path} and is
+ * rebuilt from MySQL on a background thread at every start, so nothing on disk has to be
+ * trusted after a crash. Afterwards {@link ProductSyncService} feeds it the same changes
+ * it sends to Elasticsearch. Searches go through a {@link SearcherManager} that a
+ * {@link ControlledRealTimeReopenThread} refreshes from the writer, so changes become
+ * searchable within {@code search.lucene.refresh-ms} without a commit.
+ */
+@Service
+public class LuceneProductIndex {
+
+    private static final Logger log = Logger.getLogger(LuceneProductIndex.class.getName());
+    private static final int WALK_STEP = 1000;
+
+    private final ProductRepository productRepository;
+    private final LuceneQueryBuilder queryBuilder;
+    private final ExecutorService indexingExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "lucene-indexer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile IndexReadiness.State state = IndexReadiness.State.NOT_STARTED;
+    private volatile Directory directory;
+    private volatile IndexWriter writer;
+    private volatile SearcherManager searcherManager;
+    private volatile ControlledRealTimeReopenThread<IndexSearcher> reopenThread;
+    // Products the sync wrote while the build runs; their rows in a build page may be older
+    private final Set<Long> syncedDuringBuild = ConcurrentHashMap.newKeySet();
+    private final Object buildLock = new Object();
+
+    @Value("${search.lucene.enabled:true}")
+    private boolean enabled;
+
+    @Value("${search.lucene.path:${java.io.tmpdir}/search-comparison-lucene}")
+    private String indexPath;
+
+    @Value("${search.lucene.refresh-ms:1000}")
+    private long refreshMillis;
+
+    @Value("${search.lucene.ram-buffer-mb:64}")
+    private double ramBufferMegabytes;
+
+    @Value("${search.lucene.build-page-size:1000}")
+    private int buildPageSize;
+
+    @Value("${search.lucene.track-total-hits:10000}")
+    private int trackTotalHitsUpTo;
+
+    @Autowired
+    public LuceneProductIndex(ProductRepository productRepository, LuceneQueryBuilder queryBuilder,
+                              MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.queryBuilder = queryBuilder;
+        Gauge.builder("search.lucene.documents", this, LuceneProductIndex::documentCount)
+                .description("Products in the embedded Lucene index")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        if (!enabled) {
+            log.info("ℹ️ Embedded Lucene index is disabled");
+            return;
+        }
+        log.info("🚀 Building the embedded Lucene index in the background at " + indexPath);
+        indexingExecutor.execute(this::build);
+    }
+
+    public boolean isReady() {
+        return state == IndexReadiness.State.READY;
+    }
+
+    private void build() {
+        state = IndexReadiness.State.WARMING;
+        long startTime = System.nanoTime();
+        try {
+            Path location = Path.of(indexPath);
+            Files.createDirectories(location);
+            directory = new MMapDirectory(location);
+            IndexWriterConfig config = new IndexWriterConfig(queryBuilder.analyzer())
+                    .setOpenMode(IndexWriterConfig.OpenMode.CREATE)
+                    .setRAMBufferSizeMB(ramBufferMegabytes);
+            IndexWriter indexWriter = new IndexWriter(directory, config);
+            SearcherManager manager = new SearcherManager(indexWriter, null);
+            double maxStaleSeconds = refreshMillis / 1000.0;
+            reopenThread = new ControlledRealTimeReopenThread<>(indexWriter, manager, maxStaleSeconds,
+                    Math.min(0.025, maxStaleSeconds));
+            reopenThread.setName("lucene-refresh");
+            reopenThread.setDaemon(true);
+            reopenThread.start();
+            // Published before loading, so changes synced during the build are not lost
+            writer = indexWriter;
+            searcherManager = manager;
+
+            PageRequest firstPage = PageRequest.of(0, buildPageSize);
+            long lastId = 0;
+            long indexed = 0;
+            while (true) {
+                List<Product> page = productRepository.findNextPage(lastId, firstPage);
+                if (page.isEmpty()) {
+                    break;
+                }
+                writeBuildPage(indexWriter, page);
+                lastId = page.get(page.size() - 1).getId();
+                indexed += page.size();
+            }
+            manager.maybeRefreshBlocking();
+            synchronized (buildLock) {
+                state = IndexReadiness.State.READY;
+                syncedDuringBuild.clear();
+            }
+            log.info("✅ Embedded Lucene index built with " + indexed + " products in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) + " ms");
+        } catch (Exception e) {
+            synchronized (buildLock) {
+                state = IndexReadiness.State.FAILED;
+                syncedDuringBuild.clear();
+            }
+            log.log(Level.SEVERE, "❌ Failed to build the embedded Lucene index", e);
+        }
+    }
+
+    /**
+     * Writes one page read by the build, skipping products the sync has written since the
+     * build started: the page may have been read before their change, and any later
+     * change reaches the index through the sync as well.
+     */
+    private void writeBuildPage(IndexWriter indexWriter, List<Product> page) throws IOException {
+        synchronized (buildLock) {
+            for (Product product : page) {
+                if (!syncedDuringBuild.contains(product.getId())) {
+                    indexWriter.updateDocument(idTerm(product.getId()), toDocument(product));
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies synced changes. They become searchable with the next refresh. Before the
+     * build has started there is nothing to do: the build reads the current rows.
+     */
+    public void apply(Collection<Product> upserts, Collection<Long> deleteIds) throws IOException {
+        IndexWriter indexWriter = writer;
+        if (indexWriter == null) {
+            return;
+        }
+        if (state == IndexReadiness.State.WARMING) {
+            synchronized (buildLock) {
+                if (state == IndexReadiness.State.WARMING) {
+                    upserts.forEach(product -> syncedDuringBuild.add(product.getId()));
+                    syncedDuringBuild.addAll(deleteIds);
+                    write(indexWriter, upserts, deleteIds);
+                    return;
+                }
+            }
+        }
+        write(indexWriter, upserts, deleteIds);
+    }
+
+    private static void write(IndexWriter indexWriter, Collection<Product> upserts, Collection<Long> deleteIds)
+            throws IOException {
+        for (Product product : upserts) {
+            indexWriter.updateDocument(idTerm(product.getId()), toDocument(product));
+        }
+        for (Long id : deleteIds) {
+            indexWriter.deleteDocuments(idTerm(id));
+        }
+    }
+
+    /**
+     * Runs one page of a search. Pages are reached with {@code searchAfter} in steps of
+     * {@value #WALK_STEP} hits, so a deep page costs time but never a large priority queue.
+     */
+    public LucenePage search(ProductSearchRequest request, int categorySize, double priceInterval) throws IOException {
+        if (!request.hasText() && !request.hasFilters()) {
+            return LucenePage.empty();
+        }
+        Query query = queryBuilder.build(request);
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            FieldDoc after = null;
+            boolean pastLastHit = false;
+            long toSkip = (long) request.page() * request.size();
+            while (toSkip > 0 && !pastLastHit) {
+                int step = (int) Math.min(toSkip, WALK_STEP);
+                TopFieldDocs skipped = searcher.searchAfter(after, query, step, LuceneQueryBuilder.SORT, false);
+                if (skipped.scoreDocs.length > 0) {
+                    after = (FieldDoc) skipped.scoreDocs[skipped.scoreDocs.length - 1];
+                }
+                pastLastHit = skipped.scoreDocs.length < step;
+                toSkip -= step;
+            }
+
+            CollectorManager<TopFieldCollector, TopFieldDocs> topDocs = TopFieldCollector.createSharedManager(
+                    LuceneQueryBuilder.SORT, request.size(), after, trackTotalHitsUpTo);
+            TopFieldDocs docs;
+            Facets facets = null;
+            if (request.facets()) {
+                Object[] collected = searcher.search(query,
+                        new MultiCollectorManager(topDocs, new FacetCollectorManager(categorySize, priceInterval)));
+                docs = (TopFieldDocs) collected[0];
+                facets = (Facets) collected[1];
+            } else {
+                docs = searcher.search(query, topDocs);
+            }
+            // The search still runs past the last hit, for the hit count and facets
+            ScoreDoc[] hits = pastLastHit ? new ScoreDoc[0] : docs.scoreDocs;
+
+            StoredFields storedFields = searcher.storedFields();
+            List<ProductView> products = new ArrayList<>(hits.length);
+            for (ScoreDoc hit : hits) {
+                products.add(toView(storedFields.document(hit.doc)));
+            }
+            return new LucenePage(products, docs.totalHits.value,
+                    docs.totalHits.relation == TotalHits.Relation.EQUAL_TO, facets);
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    private long documentCount() {
+        IndexWriter indexWriter = writer;
+        return indexWriter != null && indexWriter.isOpen() ? indexWriter.getDocStats().numDocs : 0;
+    }
+
+    private static Term idTerm(Long id) {
+        return new Term(LuceneQueryBuilder.ID, String.valueOf(id));
+    }
+
+    private static Document toDocument(Product product) {
+        Document document = new Document();
+        document.add(new KeywordField(LuceneQueryBuilder.ID, String.valueOf(product.getId()), Field.Store.YES));
+        if (product.getName() != null) {
+            document.add(new TextField(LuceneQueryBuilder.NAME, product.getName(), Field.Store.YES));
+            // Lowercased like the lowercase_keyword normalizer on name.keyword in Elasticsearch
+            document.add(new StringField(LuceneQueryBuilder.NAME_KEYWORD,
+                product.getName().toLowerCase(Locale.ROOT), Field.Store.NO));
+        }
+        if (product.getDescription() != null) {
+            document.add(new TextField(LuceneQueryBuilder.DESCRIPTION, product.getDescription(), Field.Store.YES));
+        }
+        if (product.getCategory() != null) {
+            document.add(new KeywordField(LuceneQueryBuilder.CATEGORY, product.getCategory(), Field.Store.YES));
+        }
+        if (product.getPrice() != null) {
+            document.add(new DoubleField(LuceneQueryBuilder.PRICE, product.getPrice(), Field.Store.YES));
+        }
+        return document;
+    }
+
+    private static ProductView toView(Document document) {
+        IndexableField price = document.getField(LuceneQueryBuilder.PRICE);
+        return new ProductView(Long.valueOf(document.get(LuceneQueryBuilder.ID)),
+                document.get(LuceneQueryBuilder.NAME),
+                document.get(LuceneQueryBuilder.DESCRIPTION),
+                document.get(LuceneQueryBuilder.CATEGORY),
+                price != null ? price.numericValue().doubleValue() : null);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        indexingExecutor.shutdownNow();
+        try {
+            if (reopenThread != null) {
+                reopenThread.close();
+            }
+            if (searcherManager != null) {
+                searcherManager.close();
+            }
+            // Rebuilt at the next start anyway, so skip flushing the buffered documents
+            if (writer != null) {
+                writer.rollback();
+            }
+            if (directory != null) {
+                directory.close();
+            }
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Could not close the embedded Lucene index", e);
+        }
+    }
+
+    /**
+     * Category counts and a price histogram over every match, the counterparts of the
+     * Elasticsearch {@code terms} and {@code histogram} aggregations.
+     */
+    private record FacetCollectorManager(int categorySize, double priceInterval)
+            implements CollectorManager<FacetCollector, Facets> {
+
+        @Override
+        public FacetCollector newCollector() {
+            return new FacetCollector(priceInterval);
+        }
+
+        @Override
+        public Facets reduce(Collection<FacetCollector> collectors) throws IOException {
+            Map<String, Long> categories = new HashMap<>();
+            Map<Long, Long> prices = new TreeMap<>();
+            for (FacetCollector collector : collectors) {
+                collector.mergeInto(categories, prices);
+            }
+            // Most frequent first, ties by name, as the terms aggregation orders them
+            List<Facets.CategoryCount> categoryCounts = categories.entrySet().stream()
+                    .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .limit(categorySize)
+                    .map(entry -> new Facets.CategoryCount(entry.getKey(), entry.getValue()))
+                    .toList();
+            List<Facets.PriceBucket> priceBuckets = prices.entrySet().stream()
+                    .map(entry -> new Facets.PriceBucket(entry.getKey() * priceInterval,
+                            (entry.getKey() + 1) * priceInterval, entry.getValue()))
+                    .toList();
+            return new Facets(categoryCounts, priceBuckets);
+        }
+    }
+
+    private static final class FacetCollector implements Collector {
+
+        /** Per-segment counts by category ordinal, resolved to names once at the end. */
+        private record SegmentCounts(SortedSetDocValues categories, long[] counts) {
+        }
+
+        private final double priceInterval;
+        private final List<SegmentCounts> segments = new ArrayList<>();
+        private final Map<Long, Long> priceBuckets = new HashMap<>();
+
+        FacetCollector(double priceInterval) {
+            this.priceInterval = priceInterval;
+        }
+
+        @Override
+        public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+            SortedSetDocValues categories = DocValues.getSortedSet(context.reader(), LuceneQueryBuilder.CATEGORY);
+            SortedNumericDocValues prices = DocValues.getSortedNumeric(context.reader(), LuceneQueryBuilder.PRICE);
+            long[] counts = new long[(int) categories.getValueCount()];
+            segments.add(new SegmentCounts(categories, counts));
+            return new LeafCollector() {
+                @Override
+                public void setScorer(Scorable scorer) {
+                }
+
+                @Override
+                public void collect(int doc) throws IOException {
+                    if (categories.advanceExact(doc)) {
+                        counts[(int) categories.nextOrd()]++;
+                    }
+                    if (prices.advanceExact(doc)) {
+                        double price = NumericUtils.sortableLongToDouble(prices.nextValue());
+                        priceBuckets.merge((long) Math.floor(price / priceInterval), 1L, Long::sum);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public ScoreMode scoreMode() {
+            return ScoreMode.COMPLETE_NO_SCORES;
+        }
+
+        void mergeInto(Map<String, Long> categories, Map<Long, Long> prices) throws IOException {
+            for (SegmentCounts segment : segments) {
+                for (int ord = 0; ord < segment.counts().length; ord++) {
+                    if (segment.counts()[ord] > 0) {
+                        categories.merge(segment.categories().lookupOrd(ord).utf8ToString(),
+                                segment.counts()[ord], Long::sum);
+                    }
+                }
+            }
+            priceBuckets.forEach((bucket, count) -> prices.merge(bucket, count, Long::sum));
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.searchcomparison.service;
+
+import com.example.searchcomparison.model.ProductSearchRequest;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.StopFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.analysis.en.PorterStemFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.DoubleField;
+import org.apache.lucene.document.KeywordField;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedSetSelector;
+import org.apache.lucene.search.TermQuery;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Lucene counterpart of {@link ProductQueryBuilder}: the same clauses, boosts and
+ * filters, written against the embedded index, so both engines rank a request the same
+ * way and their latencies compare like for like.
+ */
+@Component
+public class LuceneQueryBuilder {
+
+    static final String ID = "id";
+    static final String NAME = "name";
+    static final String NAME_KEYWORD = "name.keyword";
+    static final String DESCRIPTION = "description";
+    static final String CATEGORY = "category";
+    static final String PRICE = "price";
+
+    // _score first, then id as a tiebreaker, as in Elasticsearch (id is a keyword there too)
+    static final Sort SORT = new Sort(SortField.FIELD_SCORE,
+        KeywordField.newSortField(ID, false, SortedSetSelector.Type.MIN));
+
+    private final Analyzer analyzer = englishAnalyzer();
+
+    /** The analyzer for text fields, shared with the index writer. */
+    public Analyzer analyzer() {
+        return analyzer;
+    }
+
+    public Query build(ProductSearchRequest request) {
+        BooleanQuery.Builder bool = new BooleanQuery.Builder();
+        if (request.hasText()) {
+            bool.add(request.strict() ? exactQuery(request.query()) : similarQuery(request.query()),
+                BooleanClause.Occur.MUST);
+        }
+        if (request.category() != null) {
+            bool.add(KeywordField.newExactQuery(CATEGORY, request.category()), BooleanClause.Occur.FILTER);
+        }
+        if (request.minPrice() != null || request.maxPrice() != null) {
+            bool.add(DoubleField.newRangeQuery(PRICE,
+                    request.minPrice() != null ? request.minPrice() : Double.NEGATIVE_INFINITY,
+                    request.maxPrice() != null ? request.maxPrice() : Double.POSITIVE_INFINITY),
+                BooleanClause.Occur.FILTER);
+        }
+        return bool.build();
+    }
+
+    private static Query exactQuery(String query) {
+        return new TermQuery(new Term(NAME_KEYWORD, query.toLowerCase(Locale.ROOT)));
+    }
+
+    private Query similarQuery(String query) {
+        return new BooleanQuery.Builder()
+            .add(new BoostQuery(exactQuery(query), 2.0f), BooleanClause.Occur.SHOULD)
+            .add(new BoostQuery(new PrefixQuery(new Term(NAME, query.toLowerCase(Locale.ROOT))), 1.5f),
+                BooleanClause.Occur.SHOULD)
+            .add(matchQuery(query), BooleanClause.Occur.SHOULD)
+            .setMinimumNumberShouldMatch(1)
+            .build();
+    }
+
+    /** A {@code match} query on {@code name} with {@code minimum_should_match: "2<70%"}. */
+    private Query matchQuery(String query) {
+        List<String> terms = analyze(NAME, query);
+        BooleanQuery.Builder match = new BooleanQuery.Builder();
+        for (String term : terms) {
+            match.add(new TermQuery(new Term(NAME, term)), BooleanClause.Occur.SHOULD);
+        }
+        // Up to two terms all have to match; beyond that 70%, rounded down like Elasticsearch
+        int required = terms.size() <= 2 ? terms.size() : terms.size() * 70 / 100;
+        // No terms left after stop words matches nothing, like zero_terms_query: none
+        return match.setMinimumNumberShouldMatch(Math.max(required, 1)).build();
+    }
+
+    private List<String> analyze(String field, String text) {
+        List<String> terms = new ArrayList<>();
+        try (TokenStream stream = analyzer.tokenStream(field, text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                terms.add(term.toString());
+            }
+            stream.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return terms;
+    }
+
+    /**
+     * The {@code english} analyzer from {@code es-settings.json}: standard tokenizer,
+     * lowercase, English stop words and the Porter stemmer that Elasticsearch's
+     * {@code english} stemmer maps to. Lucene's own {@code EnglishAnalyzer} would also
+     * strip possessives, so the chain is spelled out instead.
+     */
+    private static Analyzer englishAnalyzer() {
+        return new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(String fieldName) {
+                StandardTokenizer source = new StandardTokenizer();
+                TokenStream result = new LowerCaseFilter(source);
+                result = new StopFilter(result, EnglishAnalyzer.ENGLISH_STOP_WORDS_SET);
+                result = new PorterStemFilter(result);
+                return new TokenStreamComponents(source, result);
+            }
+
+            @Override
+            protected TokenStream normalize(String fieldName, TokenStream in) {
+                return new LowerCaseFilter(in);
+            }
+        };
+    }
+}
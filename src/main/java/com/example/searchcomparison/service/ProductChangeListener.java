@@ -0,0 +1,55 @@
+package com.example.searchcomparison.service;
+
+import com.example.searchcomparison.model.Product;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA entity listener on {@link Product} that hands every committed change to
+ * {@link ProductSyncService}. Hibernate instantiates it through Spring's bean
+ * container, so it can take collaborators by constructor.
+ */
+public class ProductChangeListener {
+
+    private final ProductSyncService productSyncService;
+
+    // Hibernate creates this listener while the EntityManagerFactory is being built, and the
+    // sync service needs that factory through the repositories, so resolve it on first use.
+    @Autowired
+    public ProductChangeListener(@Lazy ProductSyncService productSyncService) {
+        this.productSyncService = productSyncService;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Product product) {
+        afterCommit(product.getId(), ProductSyncService.ChangeType.UPSERT);
+    }
+
+    @PostRemove
+    public void onRemove(Product product) {
+        afterCommit(product.getId(), ProductSyncService.ChangeType.DELETE);
+    }
+
+    // Rolled-back changes must never reach Elasticsearch, so wait for the commit.
+    private void afterCommit(Long id, ProductSyncService.ChangeType type) {
+        if (id == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            productSyncService.record(id, type);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                productSyncService.record(id, type);
+            }
+        });
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.searchcomparison.service;
+
+import co.elastic.clients.elasticsearch._types.aggregations.HistogramBucket;
+import co.elastic.clients.elasticsearch._types.aggregations.StringTermsBucket;
+import com.example.searchcomparison.model.Facets;
+import com.example.searchcomparison.model.Product;
+import com.example.searchcomparison.model.ProductSource;
+import com.example.searchcomparison.model.ProductView;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregation;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Turns Elasticsearch hits into result page entries, taking the id from the hit
+ * metadata. A hit whose id is not numeric is dropped. Kept separate from
+ * {@link ProductService} so the per-hit cost can be measured on its own.
+ */
+@Component
+public class ProductHitMapper {
+
+    private static final Logger log = Logger.getLogger(ProductHitMapper.class.getName());
+    private static final SampledLog invalidIdLog = new SampledLog(log, 1, TimeUnit.MINUTES);
+
+    public List<Product> toProducts(SearchHits<Product> searchHits) {
+        List<Product> products = new ArrayList<>(searchHits.getSearchHits().size());
+        for (SearchHit<Product> hit : searchHits.getSearchHits()) {
+            Product product = hit.getContent();
+            Long id = product != null ? parseId(hit.getId()) : null;
+            if (id != null) {
+                product.setId(id);
+                products.add(product);
+            }
+        }
+        return products;
+    }
+
+    /** Lean read mode: builds views from filtered {@code _source} and the hit id. */
+    public List<ProductView> toViews(SearchHits<ProductSource> searchHits) {
+        List<ProductView> views = new ArrayList<>(searchHits.getSearchHits().size());
+        for (SearchHit<ProductSource> hit : searchHits.getSearchHits()) {
+            ProductView view = toView(hit);
+            if (view != null) {
+                views.add(view);
+            }
+        }
+        return views;
+    }
+
+    /** One lean hit as a view, or null when the hit carries no source or no valid id. */
+    public ProductView toView(SearchHit<ProductSource> hit) {
+        ProductSource source = hit.getContent();
+        Long id = source != null ? parseId(hit.getId()) : null;
+        return id != null ? ProductView.of(id, source) : null;
+    }
+
+    /**
+     * Reads the facets requested by {@link ProductQueryBuilder#withFacets}, or returns null
+     * when the response carries no aggregations.
+     */
+    public Facets toFacets(SearchHits<?> searchHits, double priceInterval) {
+        if (!(searchHits.getAggregations() instanceof ElasticsearchAggregations aggregations)) {
+            return null;
+        }
+        List<Facets.CategoryCount> categories = new ArrayList<>();
+        ElasticsearchAggregation categoryFacet = aggregations.get(ProductQueryBuilder.CATEGORY_FACET);
+        if (categoryFacet != null) {
+            for (StringTermsBucket bucket : categoryFacet.aggregation().getAggregate().sterms().buckets().array()) {
+                categories.add(new Facets.CategoryCount(bucket.key().stringValue(), bucket.docCount()));
+            }
+        }
+        List<Facets.PriceBucket> prices = new ArrayList<>();
+        ElasticsearchAggregation priceFacet = aggregations.get(ProductQueryBuilder.PRICE_FACET);
+        if (priceFacet != null) {
+            for (HistogramBucket bucket : priceFacet.aggregation().getAggregate().histogram().buckets().array()) {
+                prices.add(new Facets.PriceBucket(bucket.key(), bucket.key() + priceInterval, bucket.docCount()));
+            }
+        }
+        return new Facets(categories, prices);
+    }
+
+    /**
+     * Parses a numeric document id without a regex or an exception on the hot path.
+     * Returns null, and logs at most once a minute, for anything that is not a
+     * non-negative {@code long}.
+     */
+    static Long parseId(String id) {
+        int length = id == null ? 0 : id.length();
+        // 19 digits is the longest a long can be; longer ids cannot be ours
+        if (length == 0 || length > 19) {
+            return invalidId(id);
+        }
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return invalidId(id);
+            }
+            value = value * 10 + (c - '0');
+        }
+        // A 19-digit value above Long.MAX_VALUE wraps around to a negative number
+        return value < 0 ? invalidId(id) : Long.valueOf(value);
+    }
+
+    private static Long invalidId(String id) {
+        invalidIdLog.log(Level.WARNING, () -> "Non-numeric ID found in Elasticsearch: " + id);
+        return null;
+    }
+}
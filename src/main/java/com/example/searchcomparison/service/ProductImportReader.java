@@ -0,0 +1,219 @@
+package com.example.searchcomparison.service;
+
+import com.example.searchcomparison.model.Product;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads products from an upload one record at a time, so memory stays flat whatever the
+ * size of the file. A record that cannot be turned into a product comes back as a row
+ * with an error and the line it started on; reading goes on with the next record.
+ */
+final class ProductImportReader implements Closeable {
+
+    /** A product to insert, or the reason the record at {@code line} was rejected. */
+    record Row(long line, Product product, String error) {
+    }
+
+    private static final int BUFFER_CHARS = 64 * 1024;
+
+    private final BufferedReader reader;
+    private final ImportFormat format;
+    private final ObjectMapper objectMapper;
+    private long lineNumber;
+    private int nameColumn = -1;
+    private int descriptionColumn = -1;
+    private int categoryColumn = -1;
+    private int priceColumn = -1;
+
+    ProductImportReader(InputStream in, ImportFormat format, ObjectMapper objectMapper) throws IOException {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_CHARS);
+        this.format = format;
+        this.objectMapper = objectMapper;
+        if (format == ImportFormat.CSV) {
+            readHeader();
+        }
+    }
+
+    /** The next record, or {@code null} at the end of the upload. */
+    Row next() throws IOException {
+        return format == ImportFormat.CSV ? nextCsv() : nextJson();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void readHeader() throws IOException {
+        String line = reader.readLine();
+        lineNumber++;
+        if (line == null) {
+            return;
+        }
+        // Excel writes a byte order mark in front of UTF-8 CSV files
+        if (line.startsWith("\uFEFF")) {
+            line = line.substring(1);
+        }
+        List<String> columns = splitCsv(line);
+        for (int i = 0; i < columns.size(); i++) {
+            switch (columns.get(i).trim().toLowerCase(Locale.ROOT)) {
+                case "name" -> nameColumn = i;
+                case "description" -> descriptionColumn = i;
+                case "category" -> categoryColumn = i;
+                case "price" -> priceColumn = i;
+                default -> { }
+            }
+        }
+        if (nameColumn < 0) {
+            throw new IllegalArgumentException("The CSV header has no name column: " + line);
+        }
+    }
+
+    private Row nextCsv() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            lineNumber++;
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+
+        long start = lineNumber;
+        // An odd number of quotes means a quoted field runs on into the next line
+        StringBuilder record = null;
+        int quotes = quoteCount(line);
+        while (quotes % 2 != 0) {
+            String continuation = reader.readLine();
+            if (continuation == null) {
+                return new Row(start, null, "unterminated quoted field");
+            }
+            lineNumber++;
+            if (record == null) {
+                record = new StringBuilder(line);
+            }
+            record.append('\n').append(continuation);
+            quotes += quoteCount(continuation);
+        }
+
+        List<String> fields = splitCsv(record != null ? record : line);
+        return toRow(start, column(fields, nameColumn), column(fields, descriptionColumn),
+                column(fields, categoryColumn), column(fields, priceColumn));
+    }
+
+    private Row nextJson() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            lineNumber++;
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (JsonProcessingException e) {
+            return new Row(lineNumber, null, "invalid JSON: " + e.getOriginalMessage());
+        }
+        if (!node.isObject()) {
+            return new Row(lineNumber, null, "expected a JSON object");
+        }
+        JsonNode price = node.path("price");
+        if (!price.isMissingNode() && !price.isNull() && !price.isNumber() && !price.isTextual()) {
+            return new Row(lineNumber, null, "price is not a number");
+        }
+        return toRow(lineNumber, text(node, "name"), text(node, "description"), text(node, "category"),
+                price.isMissingNode() || price.isNull() ? null : price.asText());
+    }
+
+    private static Row toRow(long line, String name, String description, String category, String price) {
+        if (name == null || name.isBlank()) {
+            return new Row(line, null, "name is missing");
+        }
+        Double value = null;
+        if (price != null && !price.isBlank()) {
+            try {
+                value = Double.valueOf(price.trim());
+            } catch (NumberFormatException e) {
+                return new Row(line, null, "price is not a number: " + price);
+            }
+            if (value.isNaN() || value.isInfinite() || value < 0) {
+                return new Row(line, null, "price must be zero or more: " + price);
+            }
+        }
+        Product product = new Product();
+        product.setName(name.trim());
+        product.setDescription(blankToNull(description));
+        product.setCategory(blankToNull(category));
+        product.setPrice(value);
+        return new Row(line, product, null);
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private static String column(List<String> fields, int index) {
+        return index >= 0 && index < fields.size() ? fields.get(index) : null;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static int quoteCount(CharSequence text) {
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '"') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /** Splits one complete record; quotes are balanced by the time it gets here. */
+    private static List<String> splitCsv(CharSequence record) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c != '\r') {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
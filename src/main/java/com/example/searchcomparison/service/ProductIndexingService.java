@@ -0,0 +1,275 @@
+package com.example.searchcomparison.service;
+
+import com.example.searchcomparison.model.IndexCheckpoint;
+import com.example.searchcomparison.model.ReindexReport;
+import com.example.searchcomparison.repository.IndexCheckpointRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the Elasticsearch index in step with MySQL without holding up startup.
+ *
+ * <p>Indexing runs on a background thread once the application is ready, so the
+ * web tier starts serving (SQL-only) immediately. Progress is checkpointed per index
+ * in {@code index_checkpoints}; after a crash the next start resumes after the last
+ * acknowledged id instead of reindexing from zero.
+ *
+ * <p>A full rebuild goes through {@link IndexVersionManager} instead: it loads a new
+ * index version while queries keep reading the old one through the alias.
+ */
+@Service
+public class ProductIndexingService {
+
+    enum StartupMode { RESUME, FULL, SKIP, REBUILD }
+
+    private static final Logger log = Logger.getLogger(ProductIndexingService.class.getName());
+
+    private final ProductReindexPipeline reindexPipeline;
+    private final IndexCheckpointRepository checkpointRepository;
+    private final IndexReadiness indexReadiness;
+    private final IndexVersionManager indexVersionManager;
+    private final SearchResultCache searchResultCache;
+    private final ProductSyncService productSyncService;
+    private final AtomicReference<String> buildingIndex = new AtomicReference<>();
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    private final ExecutorService indexingExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "startup-indexer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${indexing.startup-mode:resume}")
+    private String startupMode;
+
+    @Autowired
+    public ProductIndexingService(ProductReindexPipeline reindexPipeline,
+                                  IndexCheckpointRepository checkpointRepository,
+                                  IndexReadiness indexReadiness,
+                                  IndexVersionManager indexVersionManager,
+                                  SearchResultCache searchResultCache,
+                                  @Lazy ProductSyncService productSyncService) {
+        this.reindexPipeline = reindexPipeline;
+        this.checkpointRepository = checkpointRepository;
+        this.indexReadiness = indexReadiness;
+        this.indexVersionManager = indexVersionManager;
+        this.searchResultCache = searchResultCache;
+        this.productSyncService = productSyncService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeElasticsearchIndex() {
+        log.info("🚀 Scheduling Elasticsearch product indexing in the background (mode: " + startupMode + ")");
+        if (parseStartupMode() == StartupMode.REBUILD) {
+            // Counts as the queued rebuild, so POST /admin/index/rebuild cannot add a second one
+            rebuildQueued.set(true);
+            indexingExecutor.execute(() -> {
+                try {
+                    // Queries keep using the live version while the new one is loaded.
+                    if (hasLiveIndex()) {
+                        indexReadiness.markReady();
+                    } else {
+                        indexReadiness.markWarming();
+                    }
+                    rebuildIndex();
+                } finally {
+                    rebuildQueued.set(false);
+                }
+            });
+        } else {
+            indexingExecutor.execute(this::indexProductsInElasticsearch);
+        }
+    }
+
+    /**
+     * Queues a blue/green rebuild behind any indexing already running. Returns false if
+     * a rebuild is already in progress.
+     */
+    public boolean requestRebuild() {
+        if (!rebuildQueued.compareAndSet(false, true)) {
+            return false;
+        }
+        indexingExecutor.execute(() -> {
+            try {
+                rebuildIndex();
+            } finally {
+                rebuildQueued.set(false);
+            }
+        });
+        return true;
+    }
+
+    /** The version currently being loaded by a rebuild, if any. */
+    public Optional<String> getBuildingIndex() {
+        return Optional.ofNullable(buildingIndex.get());
+    }
+
+    /**
+     * Loads a complete new {@code products_v{N}} next to the live index and swaps the
+     * alias over once it is fully built, so live queries never see a partial index. A
+     * load with documents that could not be indexed is not swapped in; its checkpoint
+     * stays before the first failed batch, and the next rebuild resumes it from there,
+     * as it does an interrupted one.
+     */
+    public void rebuildIndex() {
+        String indexName = null;
+        try {
+            indexName = findInterruptedRebuild().orElseGet(indexVersionManager::createNextVersion);
+            buildingIndex.set(indexName);
+            String target = indexName;
+            IndexCheckpoint checkpoint = checkpointRepository.findById(target)
+                    .orElseGet(() -> new IndexCheckpoint(target));
+
+            ReindexReport report = reindexPipeline.reindex(IndexCoordinates.of(indexName),
+                    checkpoint.getLastIndexedId(),
+                    lastId -> saveCheckpoint(checkpoint, lastId, false));
+            if (report.hasFailures()) {
+                throw new IllegalStateException(report.documentsFailed() + " products could not be indexed into "
+                        + indexName + ", not swapping it in");
+            }
+            productSyncService.reapplyRebuildChanges(indexName);
+
+            indexVersionManager.finishBulkLoad(indexName);
+            indexVersionManager.swapAlias(indexName);
+            searchResultCache.invalidateAll("alias swapped to " + indexName);
+            saveCheckpoint(checkpoint, checkpoint.getLastIndexedId(), true);
+            // Startup resumes write through the alias, so they continue from the rebuilt state.
+            IndexCheckpoint aliasCheckpoint = checkpointRepository.findById(indexVersionManager.aliasName())
+                    .orElseGet(() -> new IndexCheckpoint(indexVersionManager.aliasName()));
+            saveCheckpoint(aliasCheckpoint, checkpoint.getLastIndexedId(), true);
+            indexVersionManager.pruneOldVersions().forEach(checkpointRepository::deleteById);
+            indexReadiness.markReady();
+        } catch (Exception e) {
+            log.log(Level.SEVERE, "❌ Rebuild of " + (indexName != null ? indexName : "a new index version")
+                    + " failed; the alias still points at the previous version", e);
+            if (!hasLiveIndex()) {
+                indexReadiness.markFailed();
+            }
+        } finally {
+            buildingIndex.set(null);
+        }
+    }
+
+    /** Rolls the alias back to the previous retained version. */
+    public Optional<String> rollback() throws IOException {
+        Optional<String> previous = indexVersionManager.rollback();
+        previous.ifPresent(version -> searchResultCache.invalidateAll("rolled back to " + version));
+        return previous;
+    }
+
+    private boolean hasLiveIndex() {
+        try {
+            return indexVersionManager.currentVersion().isPresent()
+                    || checkpointRepository.findById(indexVersionManager.aliasName())
+                        .map(IndexCheckpoint::isCompleted).orElse(false);
+        } catch (IOException e) {
+            log.log(Level.WARNING, "⚠️ Could not resolve the live index version", e);
+            return false;
+        }
+    }
+
+    private Optional<String> findInterruptedRebuild() throws IOException {
+        Optional<String> current = indexVersionManager.currentVersion();
+        List<String> versions = indexVersionManager.listVersions();
+        return checkpointRepository.findByCompletedFalseAndIndexNameStartingWith(indexVersionManager.aliasName())
+                .stream()
+                .map(IndexCheckpoint::getIndexName)
+                .filter(indexVersionManager::isVersion)
+                .filter(versions::contains)
+                .filter(name -> current.map(live -> !live.equals(name)).orElse(true))
+                .max(Comparator.comparingInt(IndexVersionManager::versionOf));
+    }
+
+    public void indexProductsInElasticsearch() {
+        StartupMode mode = parseStartupMode();
+        String indexName = ProductService.INDEX_NAME;
+        IndexCheckpoint checkpoint = checkpointRepository.findById(indexName)
+                .orElseGet(() -> new IndexCheckpoint(indexName));
+
+        if (mode == StartupMode.SKIP) {
+            log.info("⏭️ Skipping startup indexing, serving the existing index as is");
+            indexReadiness.markReady();
+            return;
+        }
+        installIndexTemplate();
+        if (mode == StartupMode.FULL) {
+            checkpoint.setLastIndexedId(0L);
+            checkpoint.setCompleted(false);
+        }
+
+        // A completed index only needs the rows added since; it can serve while we catch up.
+        if (checkpoint.isCompleted()) {
+            indexReadiness.markReady();
+        } else {
+            indexReadiness.markWarming();
+        }
+
+        try {
+            long startAfterId = checkpoint.getLastIndexedId() == null ? 0L : checkpoint.getLastIndexedId();
+            ReindexReport report = reindexPipeline.reindex(IndexCoordinates.of(indexName), startAfterId,
+                    lastId -> saveCheckpoint(checkpoint, lastId, checkpoint.isCompleted()));
+            // The checkpoint stops before the first batch with failures, so the next start
+            // resumes there; meanwhile the incremental sync keeps retrying those products.
+            if (report.hasFailures()) {
+                log.warning("⚠️ " + report.documentsFailed() + " products could not be indexed in Elasticsearch, "
+                        + "the index stays incomplete until they are synced or the next start resumes after id "
+                        + checkpoint.getLastIndexedId());
+            }
+            saveCheckpoint(checkpoint, checkpoint.getLastIndexedId(), !report.hasFailures());
+            if (report.documentsIndexed() > 0) {
+                searchResultCache.invalidateAll("indexed " + report.documentsIndexed() + " products");
+            }
+            indexReadiness.markReady();
+        } catch (Exception e) {
+            log.log(Level.SEVERE, "❌ Failed to index products in Elasticsearch, will resume after id "
+                    + checkpoint.getLastIndexedId() + " on next start", e);
+            if (!checkpoint.isCompleted()) {
+                indexReadiness.markFailed();
+            }
+        }
+    }
+
+    // Without an alias the first bulk request creates "products" itself; the template shapes it
+    private void installIndexTemplate() {
+        try {
+            indexVersionManager.putIndexTemplate();
+        } catch (RuntimeException e) {
+            log.log(Level.WARNING, "⚠️ Could not install the products index template, "
+                    + "a new index would get dynamic mappings", e);
+        }
+    }
+
+    private StartupMode parseStartupMode() {
+        return StartupMode.valueOf(startupMode.trim().toUpperCase(Locale.ROOT));
+    }
+
+    private synchronized void saveCheckpoint(IndexCheckpoint checkpoint, Long lastIndexedId, boolean completed) {
+        checkpoint.setLastIndexedId(lastIndexedId);
+        checkpoint.setCompleted(completed);
+        checkpoint.setUpdatedAt(Instant.now());
+        checkpointRepository.save(checkpoint);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        indexingExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,341 @@
+package com.example.searchcomparison.service;
+
+import com.example.searchcomparison.config.ElasticsearchConfig;
+import com.example.searchcomparison.model.IngestBatchReport;
+import com.example.searchcomparison.model.IngestReport;
+import com.example.searchcomparison.model.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bulk product import into MySQL and both search indexes.
+ *
+ * <p>The upload is read record by record and cut into batches. Each batch is inserted
+ * with one JDBC batch statement in its own transaction, bypassing Hibernate: IDENTITY ids
+ * make Hibernate insert row by row, while a JDBC batch still gets all generated ids back
+ * in one round trip. The rows, now with ids, go to the embedded Lucene index and to an
+ * Elasticsearch bulk request on a small sender pool, so the next batch is parsed and
+ * inserted while the previous one is being indexed. At most
+ * {@code ingest.elasticsearch.max-in-flight} bulk requests are outstanding; when they
+ * fall behind, the reader waits, which keeps memory bounded.
+ *
+ * <p>MySQL is the source of truth. Documents that Elasticsearch rejects are handed to
+ * {@link ProductSyncService}, which retries them like any other pending change.
+ */
+@Service
+public class ProductIngestService {
+
+    private static final Logger log = Logger.getLogger(ProductIngestService.class.getName());
+
+    private static final String INSERT_SQL =
+            "INSERT INTO products (name, name_keyword, description, category, price) VALUES (?, ?, ?, ?, ?)";
+
+    /** What became of one batch in Elasticsearch. */
+    private record ElasticsearchOutcome(long nanos, int failed, String error) {
+    }
+
+    /** A batch that is in MySQL and possibly still on its way to Elasticsearch. */
+    private record PendingBatch(int batch, int rows, int inserted, int rejected, Long firstId, Long lastId,
+                                long sqlNanos, List<String> errors, CompletableFuture<ElasticsearchOutcome> elasticsearch) {
+    }
+
+    private static final class Totals {
+        private long rows;
+        private long inserted;
+        private long rejected;
+        private long elasticsearchFailed;
+        private int batches;
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final ProductSyncService productSyncService;
+    private final LuceneProductIndex luceneIndex;
+    private final SearchResultCache searchResultCache;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService senderPool;
+    private final int maxInFlight;
+    private final Timer sqlBatches;
+    private final Timer elasticsearchBatches;
+    private final Counter rowsInserted;
+    private final Counter rowsRejected;
+    private final Counter rowsNotIndexed;
+
+    @Value("${ingest.batch-size:2000}")
+    private int batchSize;
+
+    @Value("${ingest.max-errors-per-batch:10}")
+    private int maxErrorsPerBatch;
+
+    @Autowired
+    public ProductIngestService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                @Qualifier(ElasticsearchConfig.BULK_OPERATIONS) ElasticsearchOperations elasticsearchOperations,
+                                ProductSyncService productSyncService, LuceneProductIndex luceneIndex,
+                                SearchResultCache searchResultCache, ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry,
+                                @Value("${ingest.elasticsearch.max-in-flight:2}") int maxInFlight) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.productSyncService = productSyncService;
+        this.luceneIndex = luceneIndex;
+        this.searchResultCache = searchResultCache;
+        this.objectMapper = objectMapper;
+        this.maxInFlight = maxInFlight;
+        this.senderPool = Executors.newFixedThreadPool(maxInFlight, new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ingest-sender-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.sqlBatches = Timer.builder("indexing.ingest.batch")
+                .description("One batch of a product import, per stage")
+                .tag("stage", "sql")
+                .register(meterRegistry);
+        this.elasticsearchBatches = Timer.builder("indexing.ingest.batch")
+                .description("One batch of a product import, per stage")
+                .tag("stage", "elasticsearch")
+                .register(meterRegistry);
+        this.rowsInserted = meterRegistry.counter("indexing.ingest.rows", "result", "inserted");
+        this.rowsRejected = meterRegistry.counter("indexing.ingest.rows", "result", "rejected");
+        this.rowsNotIndexed = meterRegistry.counter("indexing.ingest.rows", "result", "elasticsearch-failed");
+    }
+
+    /**
+     * Imports every record of {@code in}. {@code progress} receives one report per batch,
+     * in batch order, once the batch is in MySQL and Elasticsearch has answered for it.
+     *
+     * @throws IllegalArgumentException if the upload cannot be read at all, e.g. a CSV
+     *                                  file without a {@code name} column
+     */
+    public IngestReport ingest(InputStream in, ImportFormat format, Consumer<IngestBatchReport> progress) throws IOException {
+        long started = System.nanoTime();
+        Totals totals = new Totals();
+        Deque<PendingBatch> inFlight = new ArrayDeque<>();
+        log.info("📥 Product import started (" + format + ", batches of " + batchSize + ")");
+
+        try (ProductImportReader reader = new ProductImportReader(in, format, objectMapper)) {
+            List<Product> products = new ArrayList<>(batchSize);
+            List<String> errors = new ArrayList<>();
+            int rows = 0;
+            int batch = 0;
+            ProductImportReader.Row row;
+            while ((row = reader.next()) != null) {
+                rows++;
+                if (row.product() != null) {
+                    products.add(row.product());
+                } else if (errors.size() < maxErrorsPerBatch) {
+                    errors.add("line " + row.line() + ": " + row.error());
+                }
+                if (rows >= batchSize) {
+                    inFlight.add(submit(++batch, rows, products, errors));
+                    products = new ArrayList<>(batchSize);
+                    errors = new ArrayList<>();
+                    rows = 0;
+                    while (inFlight.size() > maxInFlight) {
+                        complete(inFlight.poll(), totals, progress);
+                    }
+                }
+            }
+            if (rows > 0) {
+                inFlight.add(submit(++batch, rows, products, errors));
+            }
+            while (!inFlight.isEmpty()) {
+                complete(inFlight.poll(), totals, progress);
+            }
+        } finally {
+            // Also after a failed upload: the batches before the failure are committed
+            if (totals.inserted > 0) {
+                searchResultCache.invalidateAll("imported " + totals.inserted + " products");
+            }
+        }
+
+        IngestReport report = new IngestReport(totals.rows, totals.inserted, totals.rejected,
+                totals.elasticsearchFailed, totals.batches, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        log.info("✅ Product import finished: " + report);
+        return report;
+    }
+
+    private PendingBatch submit(int batch, int rows, List<Product> products, List<String> errors) {
+        if (products.isEmpty()) {
+            return new PendingBatch(batch, rows, 0, rows, null, null, 0, errors,
+                    CompletableFuture.completedFuture(new ElasticsearchOutcome(0, 0, null)));
+        }
+
+        long start = System.nanoTime();
+        try {
+            insert(products);
+        } catch (DataAccessException e) {
+            log.log(Level.WARNING, "⚠️ Import batch " + batch + " could not be inserted", e);
+            if (errors.size() < maxErrorsPerBatch) {
+                errors.add("batch rejected by the database: " + e.getMostSpecificCause().getMessage());
+            }
+            return new PendingBatch(batch, rows, 0, rows, null, null, System.nanoTime() - start, errors,
+                    CompletableFuture.completedFuture(new ElasticsearchOutcome(0, 0, null)));
+        }
+        long sqlNanos = System.nanoTime() - start;
+        sqlBatches.record(sqlNanos, TimeUnit.NANOSECONDS);
+
+        CompletableFuture<ElasticsearchOutcome> indexed = CompletableFuture.supplyAsync(() -> index(batch, products), senderPool);
+        return new PendingBatch(batch, rows, products.size(), rows - products.size(),
+                products.get(0).getId(), products.get(products.size() - 1).getId(), sqlNanos, errors, indexed);
+    }
+
+    /** Inserts the batch in one transaction and sets the generated ids on the products. */
+    private void insert(List<Product> products) {
+        GeneratedKeyHolder keys = new GeneratedKeyHolder();
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_SQL, new String[] {"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        Product product = products.get(i);
+                        statement.setString(1, product.getName());
+                        statement.setString(2, product.getNameKeyword());
+                        statement.setString(3, product.getDescription());
+                        statement.setString(4, product.getCategory());
+                        if (product.getPrice() != null) {
+                            statement.setDouble(5, product.getPrice());
+                        } else {
+                            statement.setNull(5, Types.DOUBLE);
+                        }
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return products.size();
+                    }
+                },
+                keys));
+
+        List<Map<String, Object>> generated = keys.getKeyList();
+        if (generated.size() != products.size()) {
+            throw new IllegalStateException("Expected " + products.size() + " generated ids, the driver returned "
+                    + generated.size());
+        }
+        // One key per row; its column name depends on the driver (id, ID, GENERATED_KEY)
+        for (int i = 0; i < products.size(); i++) {
+            products.get(i).setId(((Number) generated.get(i).values().iterator().next()).longValue());
+        }
+    }
+
+    private ElasticsearchOutcome index(int batch, List<Product> products) {
+        try {
+            luceneIndex.apply(products, List.of());
+        } catch (IOException e) {
+            log.log(Level.WARNING, "⚠️ Import batch " + batch + " could not be added to the embedded Lucene index", e);
+        }
+
+        List<IndexQuery> queries = new ArrayList<>(products.size());
+        for (Product product : products) {
+            queries.add(new IndexQueryBuilder()
+                    .withId(String.valueOf(product.getId()))
+                    .withObject(product)
+                    .build());
+        }
+
+        long start = System.nanoTime();
+        Set<Long> failed = new HashSet<>();
+        String error = null;
+        for (String indexName : productSyncService.targetIndices()) {
+            try {
+                elasticsearchOperations.bulkIndex(queries, IndexCoordinates.of(indexName));
+            } catch (BulkFailureException e) {
+                e.getFailedDocuments().keySet().forEach(id -> failed.add(Long.valueOf(id)));
+                error = e.getFailedDocuments().size() + " documents rejected by " + indexName + ", e.g. "
+                        + e.getFailedDocuments().values().stream().findFirst().orElse(null);
+            } catch (RuntimeException e) {
+                products.forEach(product -> failed.add(product.getId()));
+                error = "bulk request to " + indexName + " failed: " + e.getMessage();
+                log.log(Level.WARNING, "⚠️ Import batch " + batch + " could not be sent to " + indexName, e);
+            }
+        }
+        long nanos = System.nanoTime() - start;
+        elasticsearchBatches.record(nanos, TimeUnit.NANOSECONDS);
+
+        // The rows are committed, so the sync worker can pick them up from MySQL later
+        failed.forEach(id -> productSyncService.record(id, ProductSyncService.ChangeType.UPSERT));
+        return new ElasticsearchOutcome(nanos, failed.size(), error);
+    }
+
+    private void complete(PendingBatch pending, Totals totals, Consumer<IngestBatchReport> progress) {
+        ElasticsearchOutcome outcome = pending.elasticsearch().join();
+        List<String> errors = pending.errors();
+        if (outcome.error() != null && errors.size() < maxErrorsPerBatch) {
+            errors.add(outcome.error());
+        }
+        // Long imports become visible as they go, but clear the cache at most once per interval
+        if (pending.inserted() > 0) {
+            searchResultCache.invalidateSoon("imported " + pending.inserted() + " products");
+        }
+
+        totals.rows += pending.rows();
+        totals.inserted += pending.inserted();
+        totals.rejected += pending.rejected();
+        totals.elasticsearchFailed += outcome.failed();
+        totals.batches++;
+        rowsInserted.increment(pending.inserted());
+        rowsRejected.increment(pending.rejected());
+        rowsNotIndexed.increment(outcome.failed());
+
+        IngestBatchReport report = new IngestBatchReport(pending.batch(), pending.rows(), pending.inserted(),
+                pending.rejected(), pending.firstId(), pending.lastId(),
+                TimeUnit.NANOSECONDS.toMillis(pending.sqlNanos()), TimeUnit.NANOSECONDS.toMillis(outcome.nanos()),
+                outcome.failed(), errors);
+        if (log.isLoggable(Level.FINE)) {
+            log.fine("📦 Import batch " + report.batch() + ": " + report.inserted() + " inserted, "
+                    + report.rejected() + " rejected");
+        }
+        progress.accept(report);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senderPool.shutdownNow();
+    }
+}
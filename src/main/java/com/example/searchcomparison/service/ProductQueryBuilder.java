@@ -0,0 +1,104 @@
+package com.example.searchcomparison.service;
+
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
+import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.json.JsonData;
+import com.example.searchcomparison.model.ProductSearchRequest;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.client.elc.NativeQueryBuilder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Turns a {@link ProductSearchRequest} into an Elasticsearch query. Free text goes into
+ * the scoring {@code must} clause; price range and category go into {@code filter}
+ * clauses, which do not score and which Elasticsearch caches per segment, so every added
+ * filter narrows the work instead of adding to it.
+ */
+@Component
+public class ProductQueryBuilder {
+
+    static final String CATEGORY_FACET = "categories";
+    static final String PRICE_FACET = "prices";
+
+    public NativeQueryBuilder build(ProductSearchRequest request) {
+        return NativeQuery.builder()
+            .withQuery(q -> q.bool(b -> {
+                if (request.hasText()) {
+                    b.must(request.strict() ? exactQuery(request.query()) : similarQuery(request.query()));
+                }
+                addFilters(b, request);
+                return b;
+            }))
+            .withTrackScores(!request.strict())
+            // _score first, then id as a tiebreaker so search_after positions are stable
+            .withSort(s -> s.score(sc -> sc.order(SortOrder.Desc)))
+            .withSort(s -> s.field(f -> f.field("id").order(SortOrder.Asc)));
+    }
+
+    /**
+     * Adds the sidebar facets to a search, so they come back with the hits in the same
+     * round trip: a {@code terms} aggregation on {@code category} and a {@code histogram}
+     * on {@code price}. Both run over every match, not just the requested page.
+     */
+    public NativeQueryBuilder withFacets(NativeQueryBuilder builder, int categorySize, double priceInterval) {
+        return builder
+            .withAggregation(CATEGORY_FACET, Aggregation.of(a -> a.terms(t -> t
+                .field("category")
+                .size(categorySize))))
+            .withAggregation(PRICE_FACET, Aggregation.of(a -> a.histogram(h -> h
+                .field("price")
+                .interval(priceInterval)
+                .minDocCount(1))));
+    }
+
+    private static void addFilters(BoolQuery.Builder bool, ProductSearchRequest request) {
+        if (request.category() != null) {
+            bool.filter(f -> f.term(t -> t
+                .field("category")
+                .value(v -> v.stringValue(request.category()))));
+        }
+        if (request.minPrice() != null || request.maxPrice() != null) {
+            bool.filter(f -> f.range(r -> {
+                r.field("price");
+                if (request.minPrice() != null) {
+                    r.gte(JsonData.of(request.minPrice()));
+                }
+                if (request.maxPrice() != null) {
+                    r.lte(JsonData.of(request.maxPrice()));
+                }
+                return r;
+            }));
+        }
+    }
+
+    // 🔍 Exact match on the keyword subfield; its normalizer lowercases the term as well,
+    // so the match is case-insensitive without a script or a lowercased copy of the name
+    private static Query exactQuery(String query) {
+        return Query.of(q -> q.term(t -> t
+            .field("name.keyword")
+            .value(v -> v.stringValue(query))));
+    }
+
+    private static Query similarQuery(String query) {
+        return Query.of(q -> q.bool(b -> b
+            // Use term query for exact matches which is faster
+            .should(s -> s.term(t -> t
+                .field("name.keyword")
+                .value(v -> v.stringValue(query))
+                .boost(2.0f)))
+            // Use prefix query instead of wildcard for better performance
+            .should(s -> s.prefix(p -> p
+                .field("name")
+                .value(query.toLowerCase())
+                .boost(1.5f)))
+            // Use match query with minimum_should_match for partial word matches
+            .should(s -> s.match(m -> m
+                .field("name")
+                .query(query)
+                .minimumShouldMatch("2<70%")
+                .boost(1.0f)))
+            .minimumShouldMatch("1")));
+    }
+}
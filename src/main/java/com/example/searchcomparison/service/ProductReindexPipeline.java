@@ -0,0 +1,406 @@
+package com.example.searchcomparison.service;
+
+import com.example.searchcomparison.config.ElasticsearchConfig;
+import com.example.searchcomparison.model.Product;
+import com.example.searchcomparison.model.ReindexReport;
+import com.example.searchcomparison.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Streams the products table into Elasticsearch without ever holding more than a
+ * few batches on the heap.
+ *
+ * <p>A single reader walks {@link ProductRepository#findNextPage} by id and packs
+ * documents into batches capped by an estimated payload size. Batches go through a
+ * bounded queue to several concurrent bulk senders; when the senders fall behind the
+ * reader waits on the queue, which is the only backpressure needed. While it waits it
+ * checks the senders, so a sender that died does not leave it blocked forever. A bulk
+ * response with item failures is retried for the failed documents only. Documents that
+ * still fail after the last retry are handed to {@link ProductSyncService}, which keeps
+ * retrying them, and their batch holds the checkpoint back.
+ */
+@Service
+public class ProductReindexPipeline {
+
+    private static final Logger log = Logger.getLogger(ProductReindexPipeline.class.getName());
+    private static final Batch END_OF_STREAM = new Batch(-1, List.of(), 0);
+    private static final long PROGRESS_LOG_INTERVAL_MS = 10_000;
+    private static final long SENDER_CHECK_INTERVAL_MS = 1_000;
+
+    private final ProductRepository productRepository;
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final ProductSyncService productSyncService;
+    private final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+    private final AtomicReference<Run> currentRun = new AtomicReference<>();
+    private final Timer bulkRequests;
+    private final Counter documentsIndexed;
+    private final Counter documentsFailed;
+    private final Counter documentsRetried;
+
+    @Value("${indexing.page-size:1000}")
+    private int pageSize;
+
+    @Value("${indexing.batch-bytes:5242880}")
+    private long batchBytes;
+
+    @Value("${indexing.senders:4}")
+    private int senders;
+
+    @Value("${indexing.queue-capacity:8}")
+    private int queueCapacity;
+
+    @Value("${indexing.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${indexing.retry-backoff-ms:500}")
+    private long retryBackoffMillis;
+
+    @Autowired
+    public ProductReindexPipeline(ProductRepository productRepository,
+                                  @Qualifier(ElasticsearchConfig.BULK_OPERATIONS) ElasticsearchOperations elasticsearchOperations,
+                                  @Lazy ProductSyncService productSyncService,
+                                  MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.productSyncService = productSyncService;
+
+        this.bulkRequests = Timer.builder("indexing.bulk.request")
+                .description("One bulk request of a reindex run, including retried attempts")
+                .register(meterRegistry);
+        this.documentsIndexed = meterRegistry.counter("indexing.bulk.documents", "result", "indexed");
+        this.documentsFailed = meterRegistry.counter("indexing.bulk.documents", "result", "failed");
+        this.documentsRetried = meterRegistry.counter("indexing.bulk.documents", "result", "retried");
+        // Gauges follow whichever run is active and read 0 between runs
+        Gauge.builder("indexing.bulk.in-flight", currentRun, run -> run.get() == null ? 0 : run.get().inFlight.get())
+                .description("Bulk requests currently being sent")
+                .register(meterRegistry);
+        Gauge.builder("indexing.bulk.docs-per-second", currentRun, run -> run.get() == null ? 0 : run.get().report().docsPerSecond())
+                .description("Indexing rate of the active reindex run")
+                .register(meterRegistry);
+        Gauge.builder("indexing.bulk.queued-batches", currentRun, run -> run.get() == null ? 0 : run.get().queued.get())
+                .description("Batches read from the database and waiting for a sender")
+                .register(meterRegistry);
+    }
+
+    public ReindexReport reindex(IndexCoordinates index) {
+        return reindex(index, 0L, lastId -> { });
+    }
+
+    /**
+     * Indexes every product with an id greater than {@code startAfterId}. The
+     * {@code checkpoint} callback receives the highest id below which every batch has
+     * been acknowledged, so a later run can safely resume from it even though batches
+     * complete out of order across senders. It never moves past a batch with documents
+     * that failed for good, so a resumed run sends that batch again.
+     */
+    public ReindexReport reindex(IndexCoordinates index, long startAfterId, LongConsumer checkpoint) {
+        Run run = new Run(index, checkpoint);
+        BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(queueCapacity);
+        currentRun.set(run);
+        ExecutorService senderPool = Executors.newFixedThreadPool(senders, new SenderThreadFactory(index));
+        List<Future<?>> senderFutures = new ArrayList<>();
+
+        log.info("🚀 Streaming products with id > " + startAfterId + " into " + index.getIndexName() + " (page size " + pageSize
+                + ", batch limit " + batchBytes + " bytes, " + senders + " senders)");
+        try {
+            for (int i = 0; i < senders; i++) {
+                senderFutures.add(senderPool.submit(() -> drain(queue, run)));
+            }
+            read(queue, run, startAfterId, senderFutures);
+            for (Future<?> future : senderFutures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reindex of " + index.getIndexName() + " was interrupted", e);
+        } catch (Exception e) {
+            throw new IllegalStateException("Reindex of " + index.getIndexName() + " failed", e);
+        } finally {
+            senderPool.shutdownNow();
+            currentRun.compareAndSet(run, null);
+        }
+
+        ReindexReport report = run.report();
+        log.info("🎉 Reindex finished - " + report);
+        return report;
+    }
+
+    private void read(BlockingQueue<Batch> queue, Run run, long startAfterId, List<Future<?>> senderFutures)
+            throws InterruptedException {
+        Pageable firstPage = PageRequest.of(0, pageSize);
+        long lastId = startAfterId;
+        long sequence = 0;
+        List<IndexQuery> pending = new ArrayList<>();
+        long pendingBytes = 0;
+
+        try {
+            while (true) {
+                List<Product> page = productRepository.findNextPage(lastId, firstPage);
+                if (page.isEmpty()) {
+                    break;
+                }
+                for (Product product : page) {
+                    pending.add(new IndexQueryBuilder()
+                            .withId(String.valueOf(product.getId()))
+                            .withObject(product)
+                            .build());
+                    pendingBytes += estimateBytes(product);
+                    if (pendingBytes >= batchBytes) {
+                        run.queued.incrementAndGet();
+                        enqueue(queue, new Batch(sequence++, pending, product.getId()), senderFutures);
+                        pending = new ArrayList<>();
+                        pendingBytes = 0;
+                    }
+                }
+                lastId = page.get(page.size() - 1).getId();
+                run.sampleHeap();
+                run.logProgress();
+            }
+            if (!pending.isEmpty()) {
+                run.queued.incrementAndGet();
+                enqueue(queue, new Batch(sequence, pending, lastId), senderFutures);
+            }
+        } finally {
+            // Always release the senders, even when the reader failed half way. Senders
+            // that already stopped need no marker, and nobody would take it.
+            release:
+            for (int i = 0; i < senders; i++) {
+                while (!queue.offer(END_OF_STREAM, SENDER_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+                    if (senderFutures.stream().allMatch(Future::isDone)) {
+                        break release;
+                    }
+                }
+            }
+        }
+    }
+
+    private static void enqueue(BlockingQueue<Batch> queue, Batch batch, List<Future<?>> senderFutures)
+            throws InterruptedException {
+        checkSenders(senderFutures);
+        while (!queue.offer(batch, SENDER_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+            checkSenders(senderFutures);
+        }
+    }
+
+    /** Senders only return after the end-of-stream marker, so one that is done already has failed. */
+    private static void checkSenders(List<Future<?>> senderFutures) throws InterruptedException {
+        for (Future<?> future : senderFutures) {
+            if (future.isDone()) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("A bulk sender failed, stopping the reader", e.getCause());
+                }
+                throw new IllegalStateException("A bulk sender stopped before the end of the stream");
+            }
+        }
+    }
+
+    private void drain(BlockingQueue<Batch> queue, Run run) {
+        try {
+            while (true) {
+                Batch batch = queue.take();
+                if (batch == END_OF_STREAM) {
+                    return;
+                }
+                run.queued.decrementAndGet();
+                run.inFlight.incrementAndGet();
+                Timer.Sample sample = Timer.start();
+                try {
+                    send(batch, run);
+                } finally {
+                    sample.stop(bulkRequests);
+                    run.inFlight.decrementAndGet();
+                }
+                run.sampleHeap();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void send(Batch batch, Run run) throws InterruptedException {
+        Map<String, IndexQuery> remaining = new LinkedHashMap<>();
+        for (IndexQuery query : batch.queries()) {
+            remaining.put(query.getId(), query);
+        }
+
+        for (int attempt = 0; attempt <= maxRetries && !remaining.isEmpty(); attempt++) {
+            if (attempt > 0) {
+                run.retried.addAndGet(remaining.size());
+                documentsRetried.increment(remaining.size());
+                Thread.sleep(retryBackoffMillis * (1L << (attempt - 1)));
+            }
+            try {
+                elasticsearchOperations.bulkIndex(new ArrayList<>(remaining.values()), run.index);
+                run.indexed.addAndGet(remaining.size());
+                documentsIndexed.increment(remaining.size());
+                remaining.clear();
+            } catch (BulkFailureException e) {
+                // Only the items Elasticsearch rejected go into the next attempt.
+                Map<String, IndexQuery> failed = new LinkedHashMap<>();
+                e.getFailedDocuments().keySet().forEach(id -> {
+                    IndexQuery query = remaining.get(id);
+                    if (query != null) {
+                        failed.put(id, query);
+                    }
+                });
+                run.indexed.addAndGet(remaining.size() - failed.size());
+                documentsIndexed.increment(remaining.size() - failed.size());
+                remaining.clear();
+                remaining.putAll(failed);
+                log.warning("⚠️ Batch " + batch.sequence() + ": " + failed.size() + " documents rejected on attempt "
+                        + (attempt + 1) + ", e.g. " + e.getFailedDocuments().values().stream().findFirst().orElse(null));
+            } catch (RuntimeException e) {
+                log.log(Level.WARNING, "⚠️ Batch " + batch.sequence() + " failed on attempt " + (attempt + 1), e);
+            }
+        }
+
+        run.batches.incrementAndGet();
+        if (remaining.isEmpty()) {
+            run.batchDone(batch);
+        } else {
+            run.failed.addAndGet(remaining.size());
+            documentsFailed.increment(remaining.size());
+            remaining.keySet().forEach(id -> productSyncService.record(Long.valueOf(id), ProductSyncService.ChangeType.UPSERT));
+            log.severe("❌ Giving up on " + remaining.size() + " documents of batch " + batch.sequence()
+                    + " after " + maxRetries + " retries, handed them to the incremental sync");
+        }
+        run.logProgress();
+    }
+
+    /**
+     * Rough size of the JSON document a product serializes to. It does not need to be
+     * exact, only proportional, so batches stay near the configured byte limit.
+     */
+    static long estimateBytes(Product product) {
+        long bytes = 96;
+        bytes += 2L * length(product.getName());
+        bytes += length(product.getDescription());
+        bytes += length(product.getCategory());
+        return bytes;
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private record Batch(long sequence, List<IndexQuery> queries, long lastId) {
+    }
+
+    private final class Run {
+        private final IndexCoordinates index;
+        private final long startNanos = System.nanoTime();
+        private final AtomicLong indexed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong retried = new AtomicLong();
+        private final AtomicLong batches = new AtomicLong();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicLong peakHeap = new AtomicLong();
+        private final AtomicLong lastProgressLog = new AtomicLong(System.nanoTime());
+        private final LongConsumer checkpoint;
+        private final TreeMap<Long, Long> completedBatches = new TreeMap<>();
+        private long nextSequence;
+
+        private Run(IndexCoordinates index, LongConsumer checkpoint) {
+            this.index = index;
+            this.checkpoint = checkpoint;
+        }
+
+        /**
+         * Advances the checkpoint over the contiguous prefix of fully acknowledged batches;
+         * a batch with failed documents never arrives here and stops it. Kept synchronized
+         * so checkpoint writes are ordered and never move backwards.
+         */
+        private synchronized void batchDone(Batch batch) {
+            completedBatches.put(batch.sequence(), batch.lastId());
+            Long advancedTo = null;
+            while (completedBatches.containsKey(nextSequence)) {
+                advancedTo = completedBatches.remove(nextSequence++);
+            }
+            if (advancedTo != null) {
+                try {
+                    checkpoint.accept(advancedTo);
+                } catch (RuntimeException e) {
+                    log.log(Level.WARNING, "⚠️ Could not record checkpoint at id " + advancedTo, e);
+                }
+            }
+        }
+
+        private void sampleHeap() {
+            peakHeap.accumulateAndGet(memoryBean.getHeapMemoryUsage().getUsed(), Math::max);
+        }
+
+        private long elapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        }
+
+        private void logProgress() {
+            long now = System.nanoTime();
+            long last = lastProgressLog.get();
+            if (now - last >= TimeUnit.MILLISECONDS.toNanos(PROGRESS_LOG_INTERVAL_MS)
+                    && lastProgressLog.compareAndSet(last, now)) {
+                log.info("⏳ " + report());
+            }
+        }
+
+        private ReindexReport report() {
+            return new ReindexReport(index.getIndexName(), indexed.get(), failed.get(), batches.get(),
+                    retried.get(), elapsedMillis(), peakHeap.get());
+        }
+    }
+
+    private static final class SenderThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        private SenderThreadFactory(IndexCoordinates index) {
+            this.prefix = "bulk-sender-" + index.getIndexName() + "-";
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -1,33 +1,62 @@
 package com.example.searchcomparison.service;
 
+import com.example.searchcomparison.config.ElasticsearchConfig;
+import com.example.searchcomparison.model.ElasticsearchPage;
+import com.example.searchcomparison.model.Facets;
+import com.example.searchcomparison.model.LucenePage;
 import com.example.searchcomparison.model.Product;
+import com.example.searchcomparison.model.ProductSearchRequest;
+import com.example.searchcomparison.model.ProductSource;
+import com.example.searchcomparison.model.ProductView;
 import com.example.searchcomparison.repository.ProductRepository;
+import com.example.searchcomparison.repository.ProductSpecifications;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.elasticsearch.ResourceNotFoundException;
+import org.springframework.data.elasticsearch.UncategorizedElasticsearchException;
 import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
-import org.springframework.data.elasticsearch.core.SearchHit;
 import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.TotalHitsRelation;
 import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
 import org.springframework.data.elasticsearch.client.elc.NativeQuery;
 import org.springframework.data.elasticsearch.client.elc.NativeQueryBuilder;
-import org.springframework.data.elasticsearch.core.query.IndexQuery;
-import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
-import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
-import co.elastic.clients.elasticsearch._types.query_dsl.MatchAllQuery;
-import co.elastic.clients.elasticsearch._types.query_dsl.RangeQuery;
-import co.elastic.clients.elasticsearch._types.query_dsl.MatchQuery;
-import co.elastic.clients.elasticsearch._types.SortOrder;
-import co.elastic.clients.json.JsonData;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilter;
+import org.springframework.data.elasticsearch.core.query.Query;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import java.io.IOException;
-import java.util.*;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 import java.util.logging.Level;
-import java.util.stream.Collectors;
 
 @Service
 public class ProductService {
@@ -35,51 +64,275 @@ public class ProductService {
     private static final Logger log = Logger.getLogger(ProductService.class.getName());
     private final ProductRepository productRepository;
     private final ElasticsearchOperations elasticsearchOperations;
-    private static final String INDEX_NAME = "products";
-    private boolean indexingComplete = false;
+    private final IndexReadiness indexReadiness;
+    private final SearchResultCache searchResultCache;
+    private final ProductQueryBuilder productQueryBuilder;
+    private final ProductHitMapper productHitMapper;
+    private final SearchMetrics searchMetrics;
+    private final ElasticsearchCircuitBreaker circuitBreaker;
+    private final LuceneProductIndex luceneIndex;
+    private final ElasticsearchConcurrencyLimiter concurrencyLimiter;
+    private final LatencyWindow shallowLatencies;
+    private final PlatformTransactionManager transactionManager;
+    private final SearchEngine engine;
+    private final SqlSearchMode sqlMode;
+    private final ReadMode readMode;
+    private final SqlProductSearch sqlSearch;
+    private final SampledLog legFailureLog = new SampledLog(log, 10, TimeUnit.SECONDS);
+    static final String INDEX_NAME = "products";
+    private static final String PRIMARY_PREFERENCE = "_local";
+    private static final int WALK_STEP = 1000;
+    private final ExecutorService sqlExecutor;
+    private final ExecutorService elasticExecutor;
+    private final ExecutorService luceneExecutor;
+
+    @Value("${search.sql-timeout-ms:2000}")
+    private long traditionalTimeoutMillis;
+
+    @Value("${search.elasticsearch-timeout-ms:2000}")
+    private long elasticTimeoutMillis;
+
+    @Value("${search.lucene-timeout-ms:2000}")
+    private long luceneTimeoutMillis;
+
+    @Value("${search.lucene.fallback:true}")
+    private boolean luceneFallback;
+
+    @Value("${search.elasticsearch.track-total-hits:10000}")
+    private int trackTotalHitsUpTo;
+
+    @Value("${search.elasticsearch.deep-paging-threshold:1000}")
+    private int deepPagingThreshold;
+
+    @Value("${search.elasticsearch.pit-keep-alive-seconds:120}")
+    private long pointInTimeKeepAliveSeconds;
+
+    @Value("${search.facets.category-size:20}")
+    private int facetCategorySize;
+
+    @Value("${search.facets.price-interval:25}")
+    private double facetPriceInterval;
+
+    @Value("${search.elasticsearch.hedge.enabled:false}")
+    private boolean hedgeEnabled;
+
+    @Value("${search.elasticsearch.hedge.min-delay-ms:20}")
+    private long hedgeMinDelayMillis;
     
     @Autowired
-    public ProductService(ProductRepository productRepository, ElasticsearchOperations elasticsearchOperations) {
+    public ProductService(ProductRepository productRepository,
+                          @Qualifier(ElasticsearchConfig.SEARCH_LEG_OPERATIONS) ElasticsearchOperations elasticsearchOperations,
+                          IndexReadiness indexReadiness, SearchResultCache searchResultCache,
+                          ProductQueryBuilder productQueryBuilder, ProductHitMapper productHitMapper,
+                          SearchMetrics searchMetrics, ElasticsearchCircuitBreaker circuitBreaker,
+                          LuceneProductIndex luceneIndex, ElasticsearchConcurrencyLimiter concurrencyLimiter,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${search.engine:elasticsearch}") String engine,
+                          @Value("${search.sql.mode:legacy}") String sqlMode,
+                          @Value("${search.read-mode:lean}") String readMode,
+                          @Value("${search.executor-threads:32}") int searchThreads,
+                          @Value("${search.executor-queue:64}") int searchQueue,
+                          @Value("${search.elasticsearch.hedge.percentile:0.95}") double hedgePercentile) {
         this.productRepository = productRepository;
         this.elasticsearchOperations = elasticsearchOperations;
+        this.indexReadiness = indexReadiness;
+        this.searchResultCache = searchResultCache;
+        this.productQueryBuilder = productQueryBuilder;
+        this.productHitMapper = productHitMapper;
+        this.searchMetrics = searchMetrics;
+        this.circuitBreaker = circuitBreaker;
+        this.luceneIndex = luceneIndex;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.shallowLatencies = new LatencyWindow(256, hedgePercentile, 50);
+        this.transactionManager = transactionManager;
+        // Parsed once, so a misspelt mode fails startup instead of every search
+        this.engine = parseMode(SearchEngine.class, engine);
+        this.sqlMode = parseMode(SqlSearchMode.class, sqlMode);
+        this.readMode = parseMode(ReadMode.class, readMode);
+        this.sqlSearch = new SqlProductSearch(productRepository, this.sqlMode, this.readMode);
+        this.sqlExecutor = legPool("sql", searchThreads, searchQueue);
+        this.elasticExecutor = legPool("elasticsearch", searchThreads, searchQueue);
+        this.luceneExecutor = legPool("lucene", searchThreads, searchQueue);
+    }
+
+    /**
+     * One pool per backend, so a slow backend cannot hold the threads or the queue of the
+     * others. The queue is bounded; a leg that does not fit is rejected at once and the
+     * page reports it as incomplete instead of letting it wait past its deadline.
+     */
+    private static ExecutorService legPool(String backend, int threads, int queueCapacity) {
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(queueCapacity, 1)), new ThreadFactory() {
+                private final AtomicInteger counter = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "search-" + backend + "-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
     }
     
     public Map<String, Object> searchProducts(String query, int page, int size, boolean strict) {
+        return searchProducts(ProductSearchRequest.of(query, page, size, strict, null));
+    }
+
+    /**
+     * Searches both backends for a typed request. {@code request.cursor()} is the token
+     * from a previous page's {@code elasticNextCursor}, letting the Elasticsearch leg
+     * continue with {@code search_after}; it may be null.
+     */
+    public Map<String, Object> searchProducts(ProductSearchRequest request) {
+        ProductSearchRequest normalized = request.normalized();
+        return searchResultCache.get(normalized, () -> searchBackends(normalized));
+    }
+
+    private Map<String, Object> searchBackends(ProductSearchRequest request) {
         Map<String, Object> result = new HashMap<>();
-        Pageable pageable = PageRequest.of(page, size);
-        long startTime;
-        long endTime;
+        int page = request.page();
+        Pageable pageable = PageRequest.of(page, request.size());
+        SearchCursor cursor = SearchCursor.decode(request.cursor());
+        SearchEngine searchEngine = searchEngine();
+        boolean elasticReady = searchEngine == SearchEngine.ELASTICSEARCH && indexReadiness.isReady();
+        // Over the concurrency limit the leg is shed rather than queued behind slow requests
+        ElasticsearchConcurrencyLimiter.Permit elasticPermit = elasticReady
+            ? concurrencyLimiter.tryAcquire(ElasticsearchConcurrencyLimiter.Priority.INTERACTIVE)
+            : null;
+        boolean elasticShed = elasticReady && elasticPermit == null;
+        // An open circuit skips Elasticsearch at once instead of waiting for another timeout
+        boolean elasticPermitted = elasticPermit != null && circuitBreaker.tryAcquire();
+        if (elasticPermit != null && !elasticPermitted) {
+            elasticPermit.cancel();
+        }
+        // Lucene answers when it is the engine, or in place of an Elasticsearch leg that is skipped
+        boolean luceneUsable = luceneIndex.isReady() && (searchEngine == SearchEngine.LUCENE || luceneFallback);
+        SqlSearchMode sqlSearchMode = sqlSearchMode();
+        long startTime = System.nanoTime();
 
         try {
+            // Both backends are independent, so run them side by side: the page then waits
+            // for the slower of the two rather than for their sum.
+            long sqlDeadline = startTime + TimeUnit.MILLISECONDS.toNanos(traditionalTimeoutMillis);
+            CompletableFuture<Leg<SqlPage>> traditionalLeg = startLeg(
+                () -> searchMetrics.sql(sqlSearchMode).record(() -> withSqlDeadline(sqlDeadline, () -> new SqlPage(
+                    searchTraditional(request, pageable),
+                    request.facets() ? traditionalFacets(request) : null))),
+                sqlExecutor);
+            CompletableFuture<Leg<ElasticsearchPage>> elasticLeg = elasticPermitted
+                ? startElasticLeg(request, cursor, elasticPermit)
+                : null;
+            // As a fallback Lucene runs beside Elasticsearch, so replacing a late or failed
+            // leg does not add its own deadline to the page's
+            CompletableFuture<Leg<LucenePage>> luceneLeg = luceneUsable
+                ? startLeg(() -> searchLucene(request), luceneExecutor)
+                : null;
+
             // Traditional SQL Search
-            startTime = System.currentTimeMillis();
-            Page<Product> traditionalResults = searchTraditional(query, pageable);
-            endTime = System.currentTimeMillis();
-            result.put("traditionalSearchTime", endTime - startTime);
+            Leg<SqlPage> traditional = await(traditionalLeg, startTime, traditionalTimeoutMillis, SearchMetrics.Backend.SQL);
+            Page<ProductView> traditionalResults = traditional.value() != null ? traditional.value().page() : Page.empty(pageable);
+            result.put("traditionalSearchTime", traditional.elapsedMillis());
+            result.put("traditionalSearchMode", sqlSearchMode);
             result.put("traditionalResults", traditionalResults.getContent());
             result.put("currentPage", page);
             result.put("totalPages", traditionalResults.getTotalPages());
             result.put("totalElements", traditionalResults.getTotalElements());
+            if (traditional.value() != null && traditional.value().facets() != null) {
+                result.put("traditionalFacets", traditional.value().facets());
+            }
+            if (traditional.incomplete()) {
+                result.put("traditionalIncomplete", true);
+            } else if (traditionalResults.isEmpty()) {
+                searchMetrics.emptyResult(SearchMetrics.Backend.SQL);
+            }
+
+            if (elasticLeg == null) {
+                result.put("elasticSearchTime", 0L);
+                result.put("elasticResults", Collections.emptyList());
+                if (searchEngine == SearchEngine.ELASTICSEARCH) {
+                    searchMetrics.fallback(SearchMetrics.Backend.ELASTICSEARCH, !elasticReady
+                        ? SearchMetrics.FallbackReason.INDEX_WARMING
+                        : elasticShed ? SearchMetrics.FallbackReason.OVERLOAD : SearchMetrics.FallbackReason.CIRCUIT_OPEN);
+                }
+                if (luceneLeg != null) {
+                    Leg<LucenePage> lucene = await(luceneLeg, startTime, luceneTimeoutMillis, SearchMetrics.Backend.LUCENE);
+                    putLucene(result, lucene, searchEngine == SearchEngine.ELASTICSEARCH);
+                    if (searchEngine == SearchEngine.ELASTICSEARCH) {
+                        result.put("message", !elasticReady
+                            ? "The search index is warming up; showing results from the embedded index."
+                            : elasticShed
+                            ? "The search cluster is busy; showing results from the embedded index."
+                            : "The search cluster is unavailable; showing results from the embedded index.");
+                    } else if (traditional.incomplete() || lucene.incomplete()) {
+                        result.put("message", "Some results are missing because a search backend was too slow or failed.");
+                    } else if (lucene.value().results().isEmpty() && traditionalResults.isEmpty()) {
+                        result.put("message", "No matches found.");
+                    }
+                    return result;
+                }
+                // No engine can answer yet; serve SQL results only.
+                if (searchEngine == SearchEngine.LUCENE) {
+                    searchMetrics.fallback(SearchMetrics.Backend.LUCENE, SearchMetrics.FallbackReason.INDEX_WARMING);
+                    result.put("indexWarming", true);
+                    result.put("message", "The embedded search index is not ready; showing database results only.");
+                } else if (!elasticReady) {
+                    result.put("indexWarming", true);
+                    result.put("message", "The search index is warming up; showing database results only.");
+                } else {
+                    result.put("elasticUnavailable", true);
+                    result.put("message", elasticShed
+                        ? "The search cluster is busy; showing database results only."
+                        : "The search cluster is unavailable; showing database results only.");
+                }
+                return result;
+            }
 
             // Elasticsearch Search
-            startTime = System.currentTimeMillis();
-            List<Product> elasticResults;
-            
-            if (strict) {
-                elasticResults = searchElasticsearchExact(query);
-            } else {
-                elasticResults = searchElasticsearchSimilar(query);
+            Leg<ElasticsearchPage> elastic = await(elasticLeg, startTime, elasticTimeoutMillis, SearchMetrics.Backend.ELASTICSEARCH);
+            // A leg the pool turned away never reached the cluster, so it says nothing about it;
+            // one the cluster refused as a bad request shows the cluster is answering
+            Throwable elasticFailure = failureOf(elasticLeg);
+            if (elasticFailure == null || !isRejection(elasticFailure)) {
+                circuitBreaker.record(!elastic.incomplete() || isClientError(elasticFailure));
             }
-            
-            endTime = System.currentTimeMillis();
-            result.put("elasticSearchTime", endTime - startTime);
+            ElasticsearchPage elasticPage = elastic.value() != null ? elastic.value() : ElasticsearchPage.empty();
+            List<ProductView> elasticResults = elasticPage.results();
+            result.put("elasticSearchTime", elastic.elapsedMillis());
             result.put("elasticResults", elasticResults);
+            result.put("elasticTotalHits", elasticPage.totalHits());
+            result.put("elasticTotalHitsExact", elasticPage.totalHitsExact());
+            if (elasticPage.nextCursor() != null) {
+                result.put("elasticNextCursor", elasticPage.nextCursor());
+            }
+            if (elasticPage.facets() != null) {
+                result.put("elasticFacets", elasticPage.facets());
+            }
+            if (elastic.incomplete()) {
+                result.put("elasticIncomplete", true);
+            } else if (elasticResults.isEmpty()) {
+                searchMetrics.emptyResult(SearchMetrics.Backend.ELASTICSEARCH);
+            }
+
+            if (luceneLeg != null && !elastic.incomplete()) {
+                // Not needed; a fallback still queued is skipped
+                luceneLeg.cancel(false);
+            } else if (luceneLeg != null) {
+                Leg<LucenePage> lucene = await(luceneLeg, startTime, luceneTimeoutMillis, SearchMetrics.Backend.LUCENE);
+                putLucene(result, lucene, true);
+                if (!lucene.incomplete()) {
+                    result.put("message", "The search cluster was too slow or failed; showing results from the embedded index.");
+                    return result;
+                }
+            }
 
-            if (elasticResults.isEmpty() && traditionalResults.isEmpty()) {
+            if (traditional.incomplete() || elastic.incomplete()) {
+                result.put("message", "Some results are missing because a search backend was too slow or failed.");
+            } else if (elasticResults.isEmpty() && traditionalResults.isEmpty()) {
                 result.put("message", "No matches found.");
             }
 
         } catch (Exception e) {
+            searchMetrics.searchError();
             log.log(Level.SEVERE, "Error during search operation", e);
             result.put("error", "An error occurred during the search operation");
         }
@@ -87,175 +340,440 @@ public class ProductService {
         return result;
     }
 
-    private Page<Product> searchTraditional(String query, Pageable pageable) {
-        return productRepository.searchExactProducts(query, pageable);
+    /** Runs a leg on its backend's pool, or fails it at once when that pool is full. */
+    private static <T> CompletableFuture<Leg<T>> startLeg(Supplier<T> search, ExecutorService executor) {
+        try {
+            return CompletableFuture.supplyAsync(() -> Leg.time(search), executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
     }
 
-    private List<Product> searchElasticsearchExact(String query) {
-        if (query == null || query.trim().isEmpty()) {
-            return Collections.emptyList();
+    /**
+     * Whether Elasticsearch refused the request itself (4xx other than 429), e.g. for an
+     * expired point-in-time ({@code search_context_missing}) or a forged cursor. The
+     * cluster answered, so such a failure says nothing about its health.
+     */
+    static boolean isClientError(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        if (cause instanceof ResourceNotFoundException) {
+            return true;
         }
+        Integer status = cause instanceof UncategorizedElasticsearchException e ? e.getStatusCode() : null;
+        return status != null && status >= 400 && status < 500 && status != 429;
+    }
+
+    private static boolean isRejection(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        return cause instanceof RejectedExecutionException;
+    }
 
+    /** Why a leg failed, or null if it completed, is still running or was cancelled at its deadline. */
+    private static Throwable failureOf(CompletableFuture<?> leg) {
+        if (!leg.isCompletedExceptionally()) {
+            return null;
+        }
         try {
-            // 🔍 Optimized Exact Match Search with performance improvements
-            NativeQuery exactMatchQuery = NativeQuery.builder()
-                .withQuery(q -> q.term(t -> t
-                    .field("name.keyword")
-                    .value(v -> v.stringValue(query))))
-                // Remove source filtering that's causing errors
-                // Enable request cache for faster repeat queries
-                .withRequestCache(true)
-                // Set preference to _local to prefer local shards
-                .withPreference("_local")
-                // Set timeout to prevent long-running queries
-                //.withMaxTime("1s")
-                .build();
-            
-            log.info("Executing optimized exact match query for: " + query);
+            leg.join();
+            return null;
+        } catch (CompletionException e) {
+            return e.getCause() != null ? e.getCause() : e;
+        } catch (CancellationException e) {
+            return null;
+        }
+    }
 
-            SearchHits<Product> exactMatchHits = elasticsearchOperations.search(
-                exactMatchQuery, Product.class, IndexCoordinates.of(INDEX_NAME));
+    /**
+     * Runs SQL work in a read-only transaction that ends at {@code deadlineNanos}, rounded
+     * up to whole seconds. The JPA transaction manager passes the remaining time to every
+     * query as {@code jakarta.persistence.query.timeout}, so the database cancels a
+     * statement that outlives its leg instead of keeping the pool thread busy.
+     */
+    <T> T withSqlDeadline(long deadlineNanos, Supplier<T> work) {
+        long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        transaction.setTimeout((int) Math.max((remainingMillis + 999) / 1000, 1));
+        return transaction.execute(status -> work.get());
+    }
 
-            List<Product> exactMatchResults = exactMatchHits.getSearchHits().stream()
-                .map(SearchHit::getContent)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+    /**
+     * Waits for one leg until its own deadline, measured from the start of the request.
+     * A leg that is late, failed or was turned away by a full pool yields an empty,
+     * incomplete result instead of failing the whole page.
+     */
+    private <T> Leg<T> await(CompletableFuture<Leg<T>> leg, long startTime, long timeoutMillis,
+                             SearchMetrics.Backend backend) {
+        long remainingNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis) - (System.nanoTime() - startTime);
+        try {
+            return leg.get(Math.max(remainingNanos, 0L), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            leg.cancel(true);
+            searchMetrics.fallback(backend, SearchMetrics.FallbackReason.TIMEOUT);
+            legFailureLog.log(Level.WARNING,
+                () -> "⏱️ " + backend + " search leg exceeded " + timeoutMillis + " ms, returning partial results");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            if (isRejection(e.getCause())) {
+                searchMetrics.fallback(backend, SearchMetrics.FallbackReason.OVERLOAD);
+                legFailureLog.log(Level.WARNING, () -> "🚦 " + backend + " search pool is full, returning partial results");
+            } else {
+                searchMetrics.error(backend);
+                searchMetrics.fallback(backend, SearchMetrics.FallbackReason.FAILURE);
+                legFailureLog.log(Level.WARNING, () -> "❌ " + backend + " search leg failed, returning partial results", e.getCause());
+            }
+        }
+        return Leg.incomplete(System.nanoTime() - startTime);
+    }
 
-            log.info("Found " + exactMatchResults.size() + " exact matches for query: " + query);
-            return exactMatchResults;
-            
-        } catch (Exception e) {
-            log.log(Level.SEVERE, "❌ Failed to execute exact match search in Elasticsearch", e);
-            return Collections.emptyList();
+    /**
+     * Starts the Elasticsearch leg. The permit goes back to the limiter when the request
+     * really completes, even if the page stopped waiting for it earlier. With hedging on,
+     * a shallow page that is still waiting after the recent p95 latency sends the same
+     * query again with another {@code preference}, which usually lands on another shard
+     * copy; the first answer is used. A hedge needs spare capacity in the limiter, so
+     * hedges stop before they add to an overload.
+     */
+    private CompletableFuture<Leg<ElasticsearchPage>> startElasticLeg(ProductSearchRequest request, SearchCursor cursor,
+                                                                      ElasticsearchConcurrencyLimiter.Permit permit) {
+        long startTime = System.nanoTime();
+        // Empty requests never reach the cluster, and deep pages are pinned to a point in time
+        boolean shallow = (request.hasText() || request.hasFilters())
+            && (long) (request.page() + 1) * request.size() <= deepPagingThreshold;
+        CompletableFuture<Leg<ElasticsearchPage>> primary = startLeg(
+            () -> searchElasticsearch(request, cursor, PRIMARY_PREFERENCE), elasticExecutor);
+        primary.whenComplete((leg, failure) -> {
+            if (failure != null && isRejection(failure)) {
+                permit.cancel();
+            } else {
+                permit.release(failure == null || isClientError(failure));
+            }
+            if (leg != null && shallow) {
+                shallowLatencies.record(leg.elapsedNanos());
+            }
+        });
+        long hedgeDelayNanos = hedgeEnabled && shallow ? shallowLatencies.percentile() : -1;
+        if (hedgeDelayNanos < 0) {
+            return primary;
+        }
+
+        // Completes with the first answer, or with a failure once neither request can answer
+        CompletableFuture<Leg<ElasticsearchPage>> first = new CompletableFuture<>();
+        AtomicInteger outstanding = new AtomicInteger(2);
+        AtomicReference<Throwable> lastFailure = new AtomicReference<>();
+        BiConsumer<Leg<ElasticsearchPage>, Throwable> settle = (leg, failure) -> {
+            if (leg != null) {
+                first.complete(new Leg<>(leg.value(), System.nanoTime() - startTime, false));
+                return;
+            }
+            if (failure != null) {
+                lastFailure.set(failure);
+            }
+            if (outstanding.decrementAndGet() == 0) {
+                first.completeExceptionally(lastFailure.get());
+            }
+        };
+        primary.whenComplete(settle);
+
+        long delayNanos = Math.max(hedgeDelayNanos, TimeUnit.MILLISECONDS.toNanos(hedgeMinDelayMillis));
+        // The delayed task only checks capacity and submits the hedge, so it runs on the
+        // common pool; the hedge itself goes to the Elasticsearch pool like any other leg
+        CompletableFuture.runAsync(() -> {
+            ElasticsearchConcurrencyLimiter.Permit hedgePermit = primary.isDone() || first.isDone()
+                ? null
+                : concurrencyLimiter.tryAcquire(ElasticsearchConcurrencyLimiter.Priority.BATCH);
+            if (hedgePermit == null) {
+                settle.accept(null, null);
+                return;
+            }
+            searchMetrics.hedgeSent();
+            // A custom preference string picks shard copies by its hash instead of the local node
+            String preference = "hedge-" + ThreadLocalRandom.current().nextInt(1024);
+            startLeg(() -> searchElasticsearch(request, cursor, preference), elasticExecutor)
+                .whenComplete((leg, failure) -> {
+                    if (failure != null && isRejection(failure)) {
+                        hedgePermit.cancel();
+                    } else {
+                        hedgePermit.release(failure == null || isClientError(failure));
+                    }
+                    if (leg != null && first.complete(new Leg<>(leg.value(), System.nanoTime() - startTime, false))) {
+                        searchMetrics.hedgeWon();
+                    } else {
+                        settle.accept(leg, failure);
+                    }
+                });
+        }, CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS));
+        return first;
+    }
+
+    /** Adds a Lucene leg to the result; {@code fallback} when it stands in for Elasticsearch. */
+    private void putLucene(Map<String, Object> result, Leg<LucenePage> lucene, boolean fallback) {
+        LucenePage lucenePage = lucene.value() != null ? lucene.value() : LucenePage.empty();
+        result.put("luceneSearchTime", lucene.elapsedMillis());
+        result.put("luceneResults", lucenePage.results());
+        result.put("luceneTotalHits", lucenePage.totalHits());
+        result.put("luceneTotalHitsExact", lucenePage.totalHitsExact());
+        if (lucenePage.facets() != null) {
+            result.put("luceneFacets", lucenePage.facets());
         }
+        if (lucene.incomplete()) {
+            result.put("luceneIncomplete", true);
+        } else if (lucenePage.results().isEmpty()) {
+            searchMetrics.emptyResult(SearchMetrics.Backend.LUCENE);
+        }
+        if (fallback) {
+            searchMetrics.luceneFallback();
+            result.put("luceneFallback", true);
+        }
+    }
+
+    private LucenePage searchLucene(ProductSearchRequest request) {
+        return searchMetrics.luceneRequest().record(() -> {
+            try {
+                return luceneIndex.search(request, facetCategorySize, facetPriceInterval);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /** The SQL leg's page, and its facets when the request asked for them. */
+    private record SqlPage(Page<ProductView> page, Facets facets) {
     }
 
-    private List<Product> searchElasticsearchSimilar(String query) {
-        if (query == null || query.trim().isEmpty()) {
-            return Collections.emptyList();
+    /** Result of one search leg together with how long it took. */
+    private record Leg<T>(T value, long elapsedNanos, boolean incomplete) {
+
+        static <T> Leg<T> time(Supplier<T> search) {
+            long startTime = System.nanoTime();
+            T value = search.get();
+            return new Leg<>(value, System.nanoTime() - startTime, false);
         }
 
-        try {
-            // Optimized search query with better performance
-            NativeQuery optimizedQuery = NativeQuery.builder()
-                .withQuery(q -> q.bool(b -> b
-                    // Use term query for exact matches which is faster
-                    .should(s -> s.term(t -> t
-                        .field("name.keyword")
-                        .value(v -> v.stringValue(query))
-                        .boost(2.0f)))
-                    // Use prefix query instead of wildcard for better performance
-                    .should(s -> s.prefix(p -> p
-                        .field("name")
-                        .value(query.toLowerCase())
-                        .boost(1.5f)))
-                    // Use match query with minimum_should_match for partial word matches
-                    .should(s -> s.match(m -> m
-                        .field("name")
-                        .query(query)
-                        .minimumShouldMatch("2<70%")
-                        .boost(1.0f)))
-                    .minimumShouldMatch("1")))
-                // Remove source filtering that's causing errors
-                // Cache the query results
+        static <T> Leg<T> incomplete(long elapsedNanos) {
+            return new Leg<>(null, elapsedNanos, true);
+        }
+
+        long elapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sqlExecutor.shutdownNow();
+        elasticExecutor.shutdownNow();
+        luceneExecutor.shutdownNow();
+    }
+
+    /** The SQL leg on its own; also used by {@link BatchSearchService}. */
+    Page<ProductView> searchTraditional(ProductSearchRequest request, Pageable pageable) {
+        return sqlSearch.search(request, pageable);
+    }
+
+    /**
+     * {@code GROUP BY} counterpart of the Elasticsearch aggregations, over the same rows
+     * the page query matches in the configured SQL mode.
+     */
+    private Facets traditionalFacets(ProductSearchRequest request) {
+        if (sqlSearchMode() == SqlSearchMode.OPTIMIZED && !request.strict() && request.hasText()) {
+            return productRepository.findFullTextFacets(request.query(), request.category(),
+                request.minPrice(), request.maxPrice(), facetCategorySize, facetPriceInterval);
+        }
+        return productRepository.findFacets(
+            ProductSpecifications.matching(request, sqlSearchMode() == SqlSearchMode.OPTIMIZED),
+            facetCategorySize, facetPriceInterval);
+    }
+
+    SqlSearchMode sqlSearchMode() {
+        return sqlMode;
+    }
+
+    SearchEngine searchEngine() {
+        return engine;
+    }
+
+    ReadMode readMode() {
+        return readMode;
+    }
+
+    private static <E extends Enum<E>> E parseMode(Class<E> type, String value) {
+        return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Runs the Elasticsearch leg for one page. Shallow pages use {@code from/size}; pages
+     * beyond {@code search.elasticsearch.deep-paging-threshold} continue from a cursor with
+     * {@code search_after} inside a point-in-time, so their cost does not grow with depth.
+     * The point-in-time is closed once the last page has been served. A cursor that
+     * Elasticsearch rejects, say because its point-in-time has expired, is dropped and the
+     * page is reached again in a fresh point-in-time.
+     */
+    private ElasticsearchPage searchElasticsearch(ProductSearchRequest request, SearchCursor cursor, String preference) {
+        if (!request.hasText() && !request.hasFilters()) {
+            return ElasticsearchPage.empty();
+        }
+        int page = request.page();
+        int size = request.size();
+
+        // Failures propagate to await(), which reports the leg as incomplete rather than empty.
+        Supplier<NativeQueryBuilder> searchQuery = () -> productQueryBuilder.build(request)
+            .withTrackTotalHitsUpTo(trackTotalHitsUpTo);
+
+        if ((long) (page + 1) * size <= deepPagingThreshold) {
+            NativeQuery shallowQuery = withFacets(searchQuery.get(), request)
+                // Enable request cache for faster repeat queries
                 .withRequestCache(true)
-                .withTrackScores(true)
-                .withSort(s -> s.score(sc -> sc.order(SortOrder.Desc)))
+                // _local prefers shards on the coordinating node; hedged requests pass another value
+                .withPreference(preference)
+                .withPageable(PageRequest.of(page, size))
                 .build();
+            return executeSearch(shallowQuery, page, size, null);
+        }
 
-            log.info("Executing optimized search for query: " + query);
-            return executeSearch(optimizedQuery);
-            
-        } catch (Exception e) {
-            log.log(Level.WARNING, "Error in similar Elasticsearch search", e);
-            return Collections.emptyList();
+        if (cursor != null && cursor.page() == page) {
+            try {
+                return searchFromCursor(searchQuery, request, cursor, size, cursor.pointInTimeId() == null);
+            } catch (RuntimeException e) {
+                if (!isClientError(e)) {
+                    throw e;
+                }
+                // The cursor outlived its point-in-time, or was never ours: start over without it
+                log.log(Level.FINE, "Elasticsearch rejected the search cursor, walking to page " + page, e);
+            }
         }
+        SearchCursor walked = searchMetrics.elasticsearchDeepPageWalk().record(() -> walkToPage(searchQuery, page, size));
+        if (walked == null) {
+            return ElasticsearchPage.empty();
+        }
+        return searchFromCursor(searchQuery, request, walked, size, true);
     }
 
-    private List<Product> executeSearch(NativeQuery searchQuery) {
+    /**
+     * Fetches the page after {@code cursor} inside its point-in-time, opening one if the
+     * cursor has none. A point-in-time this request opened ({@code openedHere}) is closed
+     * when the search fails; one from the client's cursor stays open for a retry.
+     */
+    private ElasticsearchPage searchFromCursor(Supplier<NativeQueryBuilder> searchQuery, ProductSearchRequest request,
+                                               SearchCursor cursor, int size, boolean openedHere) {
+        String pointInTimeId = cursor.pointInTimeId() != null
+            ? cursor.pointInTimeId()
+            : elasticsearchOperations.openPointInTime(IndexCoordinates.of(INDEX_NAME), pointInTimeKeepAlive());
+        NativeQuery deepQuery = withFacets(searchQuery.get(), request)
+            .withPointInTime(new Query.PointInTime(pointInTimeId, pointInTimeKeepAlive()))
+            .withSearchAfter(cursor.searchAfter())
+            .withPageable(PageRequest.of(0, size))
+            .build();
+        ElasticsearchPage result;
         try {
-            SearchHits<Product> searchHits = elasticsearchOperations.search(
-                searchQuery, Product.class, IndexCoordinates.of(INDEX_NAME));
-            
-            return searchHits.getSearchHits().stream()
-                .map(hit -> {
-                    Product product = hit.getContent();
-                    if (product != null) {
-                        try {
-                            String esId = hit.getId();
-                            if (esId.matches("\\d+")) { // 🔥 Only set ID if it's numeric
-                                product.setId(Long.parseLong(esId));
-                            } else {
-                                log.warning("Non-numeric ID found in Elasticsearch: " + esId);
-                                product.setId(null); // 🔥 Prevent crash
-                            }
-                        } catch (NumberFormatException e) {
-                            log.warning("Invalid ID format in Elasticsearch: " + hit.getId());
-                            product.setId(null); // 🔥 Prevent exception
-                        }
-                    }
-                    return product;
-                })
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
-        } catch (Exception e) {
-            log.log(Level.WARNING, "Error executing Elasticsearch search: " + e.getMessage(), e);
-            return Collections.emptyList();
+            result = executeSearch(deepQuery, cursor.page(), size, pointInTimeId);
+        } catch (RuntimeException e) {
+            if (openedHere) {
+                closePointInTime(pointInTimeId);
+            }
+            throw e;
         }
+        if (result.nextCursor() == null) {
+            // No cursor refers to it any more
+            closePointInTime(pointInTimeId);
+        }
+        return result;
     }
 
-    @PostConstruct
-    public void initializeElasticsearchIndex() {
-        log.info("🚀 Starting Elasticsearch product indexing during application startup...");
-        indexProductsInElasticsearch();
-    }
-    
-    public void indexProductsInElasticsearch() {
-        if (indexingComplete) {
-            log.info("⏭️ Skipping indexing as it was already completed");
-            return;
-        }
-        
+    /**
+     * Reaches a deep page nobody has a cursor for (e.g. a typed-in page number) by
+     * stepping through the preceding hits with {@code search_after}, fetching sort values
+     * only. Sequential "next" navigation never needs this because it carries a cursor.
+     * Returns null, with the point-in-time closed, if the results end before the page.
+     */
+    private SearchCursor walkToPage(Supplier<NativeQueryBuilder> searchQuery, int page, int size) {
+        String pointInTimeId = elasticsearchOperations.openPointInTime(IndexCoordinates.of(INDEX_NAME), pointInTimeKeepAlive());
         try {
-            log.info("📊 Fetching all products from database for Elasticsearch indexing");
-            List<Product> allProducts = productRepository.findAll();
-            log.info("📈 Found " + allProducts.size() + " products to index in Elasticsearch");
-            
-            int batchSize = 50000;
-            int totalBatches = (int) Math.ceil((double) allProducts.size() / batchSize);
-            log.info("🔄 Will process indexing in " + totalBatches + " batches of " + batchSize + " products each");
-    
-            for (int i = 0; i < allProducts.size(); i += batchSize) {
-                int batchNumber = (i / batchSize) + 1;
-                int batchStart = i;
-                int batchEnd = Math.min(i + batchSize, allProducts.size());
-                log.info("⏳ Processing batch " + batchNumber + " of " + totalBatches + " (products " + batchStart + " to " + batchEnd + ")");
-                
-                List<Product> batch = allProducts.subList(batchStart, batchEnd);
-    
-                List<IndexQuery> indexQueries = batch.stream()
-                    .map(product -> {
-                        String elasticId = String.valueOf(product.getId()); // 🔥 Force Long ID as String
-                        log.info("📝 Indexing product with ID: " + elasticId + " - " + product.getName()); // 🔥 Log each indexed product
-                        return new IndexQueryBuilder()
-                            .withId(elasticId)
-                            .withObject(product)
-                            .build();
-                    })
-                    .collect(Collectors.toList());
-    
-                log.info("📤 Sending batch " + batchNumber + " to Elasticsearch (" + indexQueries.size() + " products)");
-                elasticsearchOperations.bulkIndex(indexQueries, IndexCoordinates.of(INDEX_NAME));
-                log.info("✅ Successfully indexed batch " + batchNumber + " of " + totalBatches);
+            long toSkip = (long) page * size;
+            List<Object> searchAfter = null;
+            while (toSkip > 0) {
+                int step = (int) Math.min(toSkip, WALK_STEP);
+                NativeQueryBuilder builder = searchQuery.get()
+                    .withPointInTime(new Query.PointInTime(pointInTimeId, pointInTimeKeepAlive()))
+                    .withSourceFilter(new FetchSourceFilter(new String[0], new String[] {"*"}))
+                    .withTrackTotalHits(false)
+                    .withPageable(PageRequest.of(0, step));
+                if (searchAfter != null) {
+                    builder.withSearchAfter(searchAfter);
+                }
+                SearchHits<Product> hits = elasticsearchOperations.search(builder.build(), Product.class);
+                if (!hits.hasSearchHits()) {
+                    closePointInTime(pointInTimeId);
+                    return null;
+                }
+                pointInTimeId = hits.getPointInTimeId() != null ? hits.getPointInTimeId() : pointInTimeId;
+                searchAfter = hits.getSearchHit(hits.getSearchHits().size() - 1).getSortValues();
+                toSkip -= hits.getSearchHits().size();
+                if (hits.getSearchHits().size() < step) {
+                    closePointInTime(pointInTimeId);
+                    return null;
+                }
             }
-            
-            indexingComplete = true;
-            log.info("🎉 All products indexed successfully in Elasticsearch with correct IDs.");
-        } catch (Exception e) {
-            log.log(Level.SEVERE, "❌ Failed to index products in Elasticsearch", e);
-            throw new RuntimeException("Failed to index products during application startup", e);
+            return new SearchCursor(page, pointInTimeId, searchAfter);
+        } catch (RuntimeException e) {
+            closePointInTime(pointInTimeId);
+            throw e;
         }
     }
-    
 
+    private void closePointInTime(String pointInTimeId) {
+        try {
+            elasticsearchOperations.closePointInTime(pointInTimeId);
+        } catch (RuntimeException e) {
+            // The point-in-time expires on its own after the keep-alive
+            log.log(Level.FINE, "Could not close point-in-time", e);
+        }
+    }
+
+    private NativeQueryBuilder withFacets(NativeQueryBuilder builder, ProductSearchRequest request) {
+        return request.facets()
+            ? productQueryBuilder.withFacets(builder, facetCategorySize, facetPriceInterval)
+            : builder;
+    }
+
+    private Duration pointInTimeKeepAlive() {
+        return Duration.ofSeconds(pointInTimeKeepAliveSeconds);
+    }
+
+    private ElasticsearchPage executeSearch(NativeQuery searchQuery, int page, int size, String pointInTimeId) {
+        // Naming the index is harmless for point-in-time searches: the PIT pins the index and
+        // the index list is left out of the request.
+        IndexCoordinates index = IndexCoordinates.of(INDEX_NAME);
+        SearchHits<?> searchHits;
+        List<ProductView> products;
+        if (readMode() == ReadMode.LEAN) {
+            searchQuery.addSourceFilter(new FetchSourceFilter(ProductSource.FIELDS, new String[0]));
+            SearchHits<ProductSource> hits = searchMetrics.elasticsearchRequest()
+                .record(() -> elasticsearchOperations.search(searchQuery, ProductSource.class, index));
+            products = searchMetrics.hitMapping().record(() -> productHitMapper.toViews(hits));
+            searchHits = hits;
+        } else {
+            SearchHits<Product> hits = searchMetrics.elasticsearchRequest()
+                .record(() -> elasticsearchOperations.search(searchQuery, Product.class, index));
+            products = searchMetrics.hitMapping().record(() -> productHitMapper.toProducts(hits).stream()
+                .map(ProductView::of)
+                .toList());
+            searchHits = hits;
+        }
+
+        String nextCursor = null;
+        boolean morePages = (long) (page + 1) * size < searchHits.getTotalHits()
+            || searchHits.getTotalHitsRelation() != TotalHitsRelation.EQUAL_TO;
+        // Counted before mapping: a hit dropped for a malformed id must not end the paging
+        if (searchHits.getSearchHits().size() == size && morePages) {
+            String nextPointInTime = searchHits.getPointInTimeId() != null ? searchHits.getPointInTimeId() : pointInTimeId;
+            List<Object> lastSortValues = searchHits.getSearchHit(searchHits.getSearchHits().size() - 1).getSortValues();
+            nextCursor = new SearchCursor(page + 1, nextPointInTime, lastSortValues).encode();
+        }
+
+        return new ElasticsearchPage(products, searchHits.getTotalHits(),
+            searchHits.getTotalHitsRelation() == TotalHitsRelation.EQUAL_TO, nextCursor,
+            productHitMapper.toFacets(searchHits, facetPriceInterval));
+    }
 }
@@ -0,0 +1,139 @@
+package com.example.searchcomparison.service;
+
+import com.example.searchcomparison.model.ProductSearchRequest;
+import com.example.searchcomparison.model.ProductSource;
+import com.example.searchcomparison.model.ProductView;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.client.elc.NativeQueryBuilder;
+import org.springframework.data.elasticsearch.core.ReactiveElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilter;
+import org.springframework.data.elasticsearch.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Streams Elasticsearch hits for the JSON API without blocking a thread per request.
+ *
+ * <p>Hits are read in batches of {@code api.search.batch-size} with {@code search_after}
+ * inside a point-in-time, the same way {@link ProductService} reaches deep pages. The next
+ * batch is requested only when the subscriber has taken most of the previous one, so a
+ * slow client holds at most about two batches in memory; it never makes the server buffer
+ * the whole result set. The point-in-time is closed when the stream completes, fails or
+ * is cancelled.
+ */
+@Service
+public class ProductStreamService {
+
+    private static final Logger log = Logger.getLogger(ProductStreamService.class.getName());
+
+    private final ReactiveElasticsearchOperations reactiveOperations;
+    private final ProductQueryBuilder productQueryBuilder;
+    private final ProductHitMapper productHitMapper;
+    private final IndexReadiness indexReadiness;
+    private final ElasticsearchCircuitBreaker circuitBreaker;
+
+    @Value("${api.search.batch-size:200}")
+    private int batchSize;
+
+    @Value("${api.search.max-results:10000}")
+    private int maxResults;
+
+    @Value("${search.elasticsearch.pit-keep-alive-seconds:120}")
+    private long pointInTimeKeepAliveSeconds;
+
+    @Autowired
+    public ProductStreamService(ReactiveElasticsearchOperations reactiveOperations,
+                                ProductQueryBuilder productQueryBuilder, ProductHitMapper productHitMapper,
+                                IndexReadiness indexReadiness, ElasticsearchCircuitBreaker circuitBreaker) {
+        this.reactiveOperations = reactiveOperations;
+        this.productQueryBuilder = productQueryBuilder;
+        this.productHitMapper = productHitMapper;
+        this.indexReadiness = indexReadiness;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /** Whether Elasticsearch can currently serve streams. */
+    public boolean isAvailable() {
+        return indexReadiness.isReady() && !circuitBreaker.isOpen();
+    }
+
+    /**
+     * Streams up to {@code limit} matches, best first, with the same strict/fuzzy semantics
+     * and filters as the search page. The limit is capped at {@code api.search.max-results}.
+     */
+    public Flux<ProductView> search(ProductSearchRequest request, int limit) {
+        if (!request.hasText() && !request.hasFilters()) {
+            return Flux.empty();
+        }
+        long maxHits = Math.max(1, Math.min(limit, maxResults));
+        IndexCoordinates index = IndexCoordinates.of(ProductService.INDEX_NAME);
+        Duration keepAlive = Duration.ofSeconds(pointInTimeKeepAliveSeconds);
+
+        return Flux.usingWhen(
+                // Holds the latest point-in-time id, which Elasticsearch may change between responses
+                reactiveOperations.openPointInTime(index, keepAlive).map(AtomicReference::new),
+                pointInTime -> fetchBatch(request, index, pointInTime, null, keepAlive)
+                    .expand(batch -> batch.hits().size() < batchSize
+                        ? Mono.empty()
+                        : fetchBatch(request, index, pointInTime, batch.searchAfter(), keepAlive))
+                    // Prefetch of one batch: the next request goes out while this one drains
+                    .concatMapIterable(Batch::hits, 1),
+                pointInTime -> closePointInTime(pointInTime.get()),
+                (pointInTime, error) -> closePointInTime(pointInTime.get()),
+                pointInTime -> closePointInTime(pointInTime.get()))
+            // Before take, so hits dropped for a missing source or id do not count towards maxHits
+            .mapNotNull(productHitMapper::toView)
+            // Caps the demand passed upstream as well as the number of emitted hits
+            .take(maxHits, true);
+    }
+
+    private Mono<Batch> fetchBatch(ProductSearchRequest request, IndexCoordinates index,
+                                   AtomicReference<String> pointInTime, List<Object> searchAfter,
+                                   Duration keepAlive) {
+        NativeQueryBuilder builder = productQueryBuilder.build(request)
+            .withPointInTime(new Query.PointInTime(pointInTime.get(), keepAlive))
+            .withSourceFilter(new FetchSourceFilter(ProductSource.FIELDS, new String[0]))
+            .withTrackTotalHits(false)
+            .withPageable(PageRequest.of(0, batchSize));
+        if (searchAfter != null) {
+            builder.withSearchAfter(searchAfter);
+        }
+        return reactiveOperations.searchForHits(builder.build(), ProductSource.class, index)
+            .flatMap(hits -> {
+                if (hits.getPointInTimeId() != null) {
+                    pointInTime.set(hits.getPointInTimeId());
+                }
+                return hits.getSearchHits().collectList();
+            })
+            .map(Batch::new);
+    }
+
+    private Mono<Void> closePointInTime(String pointInTimeId) {
+        return reactiveOperations.closePointInTime(pointInTimeId)
+            .onErrorResume(e -> {
+                // The point-in-time expires on its own after the keep-alive
+                log.log(Level.FINE, "Could not close point-in-time", e);
+                return Mono.empty();
+            })
+            .then();
+    }
+
+    /** One page of hits and the sort values to continue after it. */
+    private record Batch(List<SearchHit<ProductSource>> hits) {
+
+        List<Object> searchAfter() {
+            return hits.get(hits.size() - 1).getSortValues();
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.example.searchcomparison.service;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
+import com.example.searchcomparison.config.ElasticsearchConfig;
+import com.example.searchcomparison.model.Product;
+import com.example.searchcomparison.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Incremental MySQL to Elasticsearch sync for changes made through JPA.
+ *
+ * <p>{@link ProductChangeListener} records committed changes here, keyed by product
+ * id, so repeated updates to the same product collapse into one pending entry. A
+ * scheduled worker drains the pending set in small bulk upserts and deletes. While a
+ * blue/green rebuild is running the changes are applied to the new version too, so
+ * it does not go live already stale. The rebuild may still overwrite one of them with
+ * a row it read before the change, so it calls {@link #reapplyRebuildChanges} once its
+ * bulk load is done, before the alias swap.
+ *
+ * <p>Every batch goes to the embedded {@link LuceneProductIndex} first. While
+ * Elasticsearch rejects changes they stay pending for it, but the embedded index still
+ * receives all of them, so it stays current as the fallback during an outage. The
+ * sequence of the change each product last had applied to the embedded index is kept,
+ * so a retry only loads and applies what changed since.
+ */
+@Service
+public class ProductSyncService {
+
+    public enum ChangeType { UPSERT, DELETE }
+
+    private record PendingChange(ChangeType type, long firstSeenNanos, long sequence) {
+    }
+
+    /** A batch resolved against MySQL: rows to upsert and ids to delete. */
+    private record Changes(List<Product> upserts, Set<Long> deleteIds) {
+    }
+
+    private static final Logger log = Logger.getLogger(ProductSyncService.class.getName());
+
+    private final ConcurrentHashMap<Long, PendingChange> pending = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Set<Long> syncedDuringRebuild = ConcurrentHashMap.newKeySet();
+    // Sequence of the pending change last applied to the embedded index, per product
+    private final ConcurrentHashMap<Long, Long> appliedToLucene = new ConcurrentHashMap<>();
+    private final ProductRepository productRepository;
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final ElasticsearchClient elasticsearchClient;
+    private final ProductIndexingService indexingService;
+    private final LuceneProductIndex luceneIndex;
+    private final SearchResultCache searchResultCache;
+    private final Counter upsertsSynced;
+    private final Counter deletesSynced;
+    private final Counter syncFailures;
+
+    @Value("${sync.max-batch:500}")
+    private int maxBatch;
+
+    @Autowired
+    public ProductSyncService(ProductRepository productRepository,
+                              @Qualifier(ElasticsearchConfig.BULK_OPERATIONS) ElasticsearchOperations elasticsearchOperations,
+                              @Qualifier(ElasticsearchConfig.BULK_CLIENT) ElasticsearchClient elasticsearchClient, @Lazy ProductIndexingService indexingService,
+                              LuceneProductIndex luceneIndex, SearchResultCache searchResultCache,
+                              MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.elasticsearchClient = elasticsearchClient;
+        this.indexingService = indexingService;
+        this.luceneIndex = luceneIndex;
+        this.searchResultCache = searchResultCache;
+        this.upsertsSynced = meterRegistry.counter("search.sync.documents", "operation", "upsert");
+        this.deletesSynced = meterRegistry.counter("search.sync.documents", "operation", "delete");
+        this.syncFailures = meterRegistry.counter("search.sync.failures");
+        Gauge.builder("search.sync.pending", pending, Map::size)
+                .description("Product changes waiting to be applied to Elasticsearch")
+                .register(meterRegistry);
+        Gauge.builder("search.sync.lag", this, ProductSyncService::lagSeconds)
+                .description("Age of the oldest change not yet applied to Elasticsearch")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    public void record(Long id, ChangeType type) {
+        // Keep the newest operation but the oldest timestamp, so lag reflects the wait.
+        pending.merge(id, new PendingChange(type, System.nanoTime(), sequence.incrementAndGet()),
+                (previous, latest) -> new PendingChange(latest.type(), previous.firstSeenNanos(), latest.sequence()));
+    }
+
+    public double lagSeconds() {
+        long now = System.nanoTime();
+        long oldest = pending.values().stream().mapToLong(PendingChange::firstSeenNanos).min().orElse(now);
+        return (now - oldest) / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+
+    @Scheduled(fixedDelayString = "${sync.interval-ms:1000}")
+    public void drain() {
+        while (!pending.isEmpty()) {
+            Map<Long, PendingChange> batch = new LinkedHashMap<>();
+            for (Map.Entry<Long, PendingChange> entry : pending.entrySet()) {
+                if (batch.size() >= maxBatch) {
+                    break;
+                }
+                batch.put(entry.getKey(), entry.getValue());
+            }
+            if (!apply(batch)) {
+                applyToLuceneOnly();
+                return;
+            }
+            // Only drop entries nobody touched since we read them; newer changes stay queued.
+            batch.forEach((id, change) -> {
+                pending.remove(id, change);
+                appliedToLucene.remove(id, change.sequence());
+            });
+        }
+    }
+
+    private boolean apply(Map<Long, PendingChange> batch) {
+        Changes changes = load(batch);
+        Set<Long> deleteIds = changes.deleteIds();
+        applyToLucene(batch, changes);
+
+        List<IndexQuery> upserts = upserts(changes);
+
+        try {
+            List<String> indices = targetIndices();
+            for (String indexName : indices) {
+                write(indexName, upserts, deleteIds);
+            }
+            if (indices.size() > 1) {
+                syncedDuringRebuild.addAll(batch.keySet());
+            }
+            upsertsSynced.increment(upserts.size());
+            deletesSynced.increment(deleteIds.size());
+            searchResultCache.invalidateSoon("synced " + batch.size() + " product changes");
+            return true;
+        } catch (Exception e) {
+            syncFailures.increment();
+            log.log(Level.WARNING, "⚠️ Failed to sync " + batch.size() + " product changes, will retry", e);
+            return false;
+        }
+    }
+
+    /**
+     * Writes the current MySQL state of every product synced during the rebuild into
+     * {@code indexName} again. The rebuild's bulk load may have written an older copy of
+     * such a product after the sync did, so this runs after the load and before the swap.
+     */
+    void reapplyRebuildChanges(String indexName) throws IOException {
+        List<Long> ids = new ArrayList<>(syncedDuringRebuild);
+        for (int from = 0; from < ids.size(); from += maxBatch) {
+            Map<Long, PendingChange> batch = new LinkedHashMap<>();
+            for (Long id : ids.subList(from, Math.min(from + maxBatch, ids.size()))) {
+                batch.put(id, new PendingChange(ChangeType.UPSERT, System.nanoTime(), 0));
+            }
+            Changes changes = load(batch);
+            write(indexName, upserts(changes), changes.deleteIds());
+        }
+        ids.forEach(syncedDuringRebuild::remove);
+        if (!ids.isEmpty()) {
+            log.info("🔁 Re-applied " + ids.size() + " product changes synced during the rebuild to " + indexName);
+        }
+    }
+
+    private void write(String indexName, List<IndexQuery> upserts, Set<Long> deleteIds) throws IOException {
+        if (!upserts.isEmpty()) {
+            elasticsearchOperations.bulkIndex(upserts, IndexCoordinates.of(indexName));
+        }
+        if (!deleteIds.isEmpty()) {
+            delete(indexName, deleteIds);
+        }
+    }
+
+    private Changes load(Map<Long, PendingChange> batch) {
+        Set<Long> upsertIds = new HashSet<>();
+        Set<Long> deleteIds = new HashSet<>();
+        batch.forEach((id, change) -> (change.type() == ChangeType.UPSERT ? upsertIds : deleteIds).add(id));
+
+        List<Product> upserts = new ArrayList<>();
+        for (Product product : productRepository.findAllById(upsertIds)) {
+            upserts.add(product);
+            upsertIds.remove(product.getId());
+        }
+        // Updated and then deleted before we got here.
+        deleteIds.addAll(upsertIds);
+        return new Changes(upserts, deleteIds);
+    }
+
+    private static List<IndexQuery> upserts(Changes changes) {
+        List<IndexQuery> upserts = new ArrayList<>();
+        for (Product product : changes.upserts()) {
+            upserts.add(new IndexQueryBuilder()
+                    .withId(String.valueOf(product.getId()))
+                    .withObject(product)
+                    .build());
+        }
+        return upserts;
+    }
+
+    /** Applies the changes of {@code batch} the embedded index does not have yet. */
+    private void applyToLucene(Map<Long, PendingChange> batch, Changes changes) {
+        List<Product> upserts = new ArrayList<>();
+        for (Product product : changes.upserts()) {
+            if (!isInLucene(product.getId(), batch.get(product.getId()))) {
+                upserts.add(product);
+            }
+        }
+        Set<Long> deleteIds = new HashSet<>();
+        for (Long id : changes.deleteIds()) {
+            if (!isInLucene(id, batch.get(id))) {
+                deleteIds.add(id);
+            }
+        }
+        if (upserts.isEmpty() && deleteIds.isEmpty()) {
+            return;
+        }
+        try {
+            luceneIndex.apply(upserts, deleteIds);
+            batch.forEach((id, change) -> appliedToLucene.put(id, change.sequence()));
+        } catch (IOException e) {
+            log.log(Level.WARNING, "⚠️ Failed to apply product changes to the embedded Lucene index", e);
+        }
+    }
+
+    private boolean isInLucene(Long id, PendingChange change) {
+        return Long.valueOf(change.sequence()).equals(appliedToLucene.get(id));
+    }
+
+    /**
+     * Elasticsearch failed on a batch, so the rest of the pending changes wait for the next
+     * run; the embedded index takes them now. Changes it already has are not loaded again,
+     * so an outage costs one load per change rather than one per change and tick.
+     */
+    private void applyToLuceneOnly() {
+        Map<Long, PendingChange> batch = new LinkedHashMap<>();
+        for (Map.Entry<Long, PendingChange> entry : pending.entrySet()) {
+            if (isInLucene(entry.getKey(), entry.getValue())) {
+                continue;
+            }
+            batch.put(entry.getKey(), entry.getValue());
+            if (batch.size() >= maxBatch) {
+                applyToLucene(batch, load(batch));
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            applyToLucene(batch, load(batch));
+        }
+    }
+
+    /** The live index, plus the version being rebuilt so it does not go live stale. */
+    List<String> targetIndices() {
+        List<String> indices = new ArrayList<>();
+        indices.add(ProductService.INDEX_NAME);
+        indexingService.getBuildingIndex().ifPresent(indices::add);
+        return indices;
+    }
+
+    private void delete(String indexName, Set<Long> ids) throws IOException {
+        List<BulkOperation> operations = new ArrayList<>();
+        for (Long id : ids) {
+            operations.add(BulkOperation.of(op -> op.delete(d -> d.index(indexName).id(String.valueOf(id)))));
+        }
+        BulkResponse response = elasticsearchClient.bulk(b -> b.operations(operations));
+        // A 404 just means the document was never indexed, which is the state we want.
+        boolean failed = response.items().stream()
+                .anyMatch(item -> item.error() != null && item.status() != 404);
+        if (failed) {
+            throw new IllegalStateException("Bulk delete on " + indexName + " reported item failures");
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.searchcomparison.service;
+
+/**
+ * How search results are read from the backends.
+ *
+ * <ul>
+ *   <li>{@code LEAN}: SQL selects the displayed columns straight into
+ *   {@link com.example.searchcomparison.model.ProductView}, and Elasticsearch returns
+ *   only the displayed {@code _source} fields.</li>
+ *   <li>{@code ENTITY}: both legs load full {@link com.example.searchcomparison.model.Product}
+ *   entities and copy them into views, as before; kept for comparison.</li>
+ * </ul>
+ */
+public enum ReadMode { LEAN, ENTITY }
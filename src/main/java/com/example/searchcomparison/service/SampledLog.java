@@ -0,0 +1,44 @@
+package com.example.searchcomparison.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Rate-limited logging for events that can happen on every request. At most one line
+ * is written per interval; it carries the number of occurrences that were skipped
+ * since the previous line. The per-event counts belong in metrics, not in the log.
+ */
+final class SampledLog {
+
+    private final Logger logger;
+    private final long intervalNanos;
+    private final AtomicLong nextLogAt = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicLong suppressed = new AtomicLong();
+
+    SampledLog(Logger logger, long interval, TimeUnit unit) {
+        this.logger = logger;
+        this.intervalNanos = unit.toNanos(interval);
+    }
+
+    void log(Level level, Supplier<String> message) {
+        log(level, message, null);
+    }
+
+    void log(Level level, Supplier<String> message, Throwable thrown) {
+        if (!logger.isLoggable(level)) {
+            return;
+        }
+        long now = System.nanoTime();
+        long next = nextLogAt.get();
+        if ((next != Long.MIN_VALUE && now - next < 0) || !nextLogAt.compareAndSet(next, now + intervalNanos)) {
+            suppressed.incrementAndGet();
+            return;
+        }
+        long skipped = suppressed.getAndSet(0);
+        String text = skipped > 0 ? message.get() + " (" + skipped + " similar messages suppressed)" : message.get();
+        logger.log(level, text, thrown);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.searchcomparison.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Opaque token that lets the next Elasticsearch page continue with {@code search_after}
+ * from the last hit of the previous one, inside the same point-in-time when there is one.
+ * It travels through the page links as a URL-safe base64 JSON string.
+ */
+public record SearchCursor(int page, String pointInTimeId, List<Object> searchAfter) {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public String encode() {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(this));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not encode search cursor", e);
+        }
+    }
+
+    /** Decodes a cursor from a request parameter; a missing or mangled token yields null. */
+    public static SearchCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            byte[] json = Base64.getUrlDecoder().decode(token.getBytes(StandardCharsets.US_ASCII));
+            return MAPPER.readValue(json, SearchCursor.class);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.searchcomparison.service;
+
+/**
+ * Which search engine answers next to SQL on the search pages.
+ *
+ * <ul>
+ *   <li>{@code ELASTICSEARCH}: the remote cluster, as before. The embedded Lucene index
+ *   stands in while the cluster is warming, unreachable or too slow, if it is enabled.</li>
+ *   <li>{@code LUCENE}: the embedded index only; no network hop, so it is the latency
+ *   baseline for the other two.</li>
+ * </ul>
+ */
+public enum SearchEngine { ELASTICSEARCH, LUCENE }
@@ -0,0 +1,169 @@
+package com.example.searchcomparison.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters for the search hot path, one per stage a page goes through: the SQL leg, the
+ * Elasticsearch or Lucene request, hit mapping and template rendering. Timers publish percentile
+ * histograms (see {@code metrics.properties}), so tail latency is visible per stage
+ * rather than only as the single number printed on the page.
+ */
+@Component
+public class SearchMetrics {
+
+    public enum Backend { SQL, ELASTICSEARCH, LUCENE }
+
+    /** Why a page was served without one of the backends. */
+    public enum FallbackReason { TIMEOUT, FAILURE, INDEX_WARMING, CIRCUIT_OPEN, OVERLOAD }
+
+    private final MeterRegistry meterRegistry;
+    private final Map<SqlSearchMode, Timer> sqlTimers = new EnumMap<>(SqlSearchMode.class);
+    private final Timer elasticsearchRequest;
+    private final Timer elasticsearchDeepPageWalk;
+    private final Timer hitMapping;
+    private final Timer luceneRequest;
+    private final Counter luceneFallbacks;
+    private final Counter hedgesSent;
+    private final Counter hedgesWon;
+    private final Map<Backend, Timer> batchTimers = new EnumMap<>(Backend.class);
+    private final DistributionSummary batchSize;
+    private final Map<Backend, Counter> emptyResults = new EnumMap<>(Backend.class);
+    private final Map<Backend, Counter> errors = new EnumMap<>(Backend.class);
+    private final Counter searchErrors;
+
+    @Autowired
+    public SearchMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (SqlSearchMode mode : SqlSearchMode.values()) {
+            sqlTimers.put(mode, Timer.builder("search.sql")
+                    .description("SQL leg of a search, query and count")
+                    .tag("mode", tagValue(mode))
+                    .register(meterRegistry));
+        }
+        this.elasticsearchRequest = Timer.builder("search.elasticsearch.request")
+                .description("Elasticsearch search request for one result page")
+                .register(meterRegistry);
+        this.elasticsearchDeepPageWalk = Timer.builder("search.elasticsearch.deep-page-walk")
+                .description("Stepping through earlier hits to reach a deep page without a cursor")
+                .register(meterRegistry);
+        this.hitMapping = Timer.builder("search.elasticsearch.hit-mapping")
+                .description("Turning Elasticsearch hits into result page entries")
+                .register(meterRegistry);
+        for (Backend backend : Backend.values()) {
+            emptyResults.put(backend, meterRegistry.counter("search.results.empty", "backend", tagValue(backend)));
+            errors.put(backend, meterRegistry.counter("search.errors", "backend", tagValue(backend)));
+        }
+        // Own name, so summing search.errors over backends does not count a failed page twice
+        this.searchErrors = Counter.builder("search.page.errors")
+                .description("Searches that failed as a whole and returned an error page")
+                .register(meterRegistry);
+        this.luceneRequest = Timer.builder("search.lucene.request")
+                .description("Embedded Lucene search for one result page")
+                .register(meterRegistry);
+        this.luceneFallbacks = Counter.builder("search.lucene.fallbacks")
+                .description("Pages answered from the embedded Lucene index because Elasticsearch could not serve them")
+                .register(meterRegistry);
+        this.hedgesSent = Counter.builder("search.elasticsearch.hedges")
+                .description("Second Elasticsearch requests sent for a slow page search, and how many answered first")
+                .tag("outcome", "sent")
+                .register(meterRegistry);
+        this.hedgesWon = Counter.builder("search.elasticsearch.hedges")
+                .description("Second Elasticsearch requests sent for a slow page search, and how many answered first")
+                .tag("outcome", "won")
+                .register(meterRegistry);
+        // Batch searches run against SQL and Elasticsearch only
+        for (Backend backend : EnumSet.of(Backend.SQL, Backend.ELASTICSEARCH)) {
+            batchTimers.put(backend, Timer.builder("search.batch")
+                    .description("All queries of a batch search on one backend")
+                    .tag("backend", tagValue(backend))
+                    .register(meterRegistry));
+        }
+        this.batchSize = DistributionSummary.builder("search.batch.queries")
+                .description("Queries per batch search")
+                .register(meterRegistry);
+    }
+
+    public Timer sql(SqlSearchMode mode) {
+        return sqlTimers.get(mode);
+    }
+
+    public Timer elasticsearchRequest() {
+        return elasticsearchRequest;
+    }
+
+    public Timer elasticsearchDeepPageWalk() {
+        return elasticsearchDeepPageWalk;
+    }
+
+    public Timer hitMapping() {
+        return hitMapping;
+    }
+
+    public Timer luceneRequest() {
+        return luceneRequest;
+    }
+
+    /** Lucene stood in for Elasticsearch on a page. */
+    public void luceneFallback() {
+        luceneFallbacks.increment();
+    }
+
+    /** A second Elasticsearch request went out for a page search that passed its hedge delay. */
+    public void hedgeSent() {
+        hedgesSent.increment();
+    }
+
+    /** The second request answered before the first one. */
+    public void hedgeWon() {
+        hedgesWon.increment();
+    }
+
+    public Timer batch(Backend backend) {
+        return batchTimers.get(backend);
+    }
+
+    public DistributionSummary batchSize() {
+        return batchSize;
+    }
+
+    public void recordRender(String view, long elapsedNanos) {
+        Timer.builder("search.render")
+                .description("Thymeleaf rendering of a search page")
+                .tag("view", view)
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void emptyResult(Backend backend) {
+        emptyResults.get(backend).increment();
+    }
+
+    /** A backend failed outright; the page was served without it. */
+    public void error(Backend backend) {
+        errors.get(backend).increment();
+    }
+
+    /** The whole search failed and the page shows an error. */
+    public void searchError() {
+        searchErrors.increment();
+    }
+
+    public void fallback(Backend missing, FallbackReason reason) {
+        meterRegistry.counter("search.fallbacks", "backend", tagValue(missing), "reason", tagValue(reason)).increment();
+    }
+
+    private static String tagValue(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.searchcomparison.service;
+
+import com.example.searchcomparison.model.Product;
+import com.example.searchcomparison.model.ProductSearchRequest;
+import com.example.searchcomparison.model.ProductView;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Application-side cache in front of {@link ProductService#searchProducts}.
+ *
+ * <p>Entries are keyed by the normalized {@link ProductSearchRequest} (query, filters,
+ * page, size, mode and cursor), bounded by an estimate of their heap weight and expire
+ * after a TTL. Concurrent identical searches share one backend call: the first caller computes
+ * the result and everyone arriving meanwhile waits on the same future. Partial or
+ * failed results are handed to the waiting callers but never cached, and neither are deep
+ * pages whose next-page cursor holds a point-in-time: it is closed once anyone reaches the
+ * last page, so a shared copy would soon hand out a dead cursor. A cache hit comes
+ * back with {@code cached=true} and its own lookup time in {@code cacheLookupTime}; the
+ * backend times of the original search are dropped, since they were not spent on it.
+ *
+ * <p>Reindexing and alias swaps clear the cache at once. Frequent small changes, such as
+ * the change sync, go through {@link #invalidateSoon}, which clears it at most once per
+ * {@code search.cache.invalidate-interval-ms}.
+ */
+@Component
+public class SearchResultCache {
+
+    private static final Logger log = Logger.getLogger(SearchResultCache.class.getName());
+    private static final int ENTRY_OVERHEAD_BYTES = 512;
+    private static final List<String> BACKEND_TIMES =
+            List.of("traditionalSearchTime", "elasticSearchTime", "luceneSearchTime");
+
+    private final AsyncCache<ProductSearchRequest, Map<String, Object>> cache;
+    private final boolean enabled;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter coalesced;
+    private final AtomicReference<String> pendingInvalidation = new AtomicReference<>();
+
+    @Autowired
+    public SearchResultCache(MeterRegistry meterRegistry,
+                             @Value("${search.cache.enabled:true}") boolean enabled,
+                             @Value("${search.cache.max-weight-bytes:67108864}") long maxWeightBytes,
+                             @Value("${search.cache.ttl-seconds:60}") long ttlSeconds) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeightBytes)
+                .weigher((ProductSearchRequest key, Map<String, Object> value) -> weigh(key, value))
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .buildAsync();
+
+        this.hits = meterRegistry.counter("search.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("search.cache.requests", "result", "miss");
+        this.coalesced = meterRegistry.counter("search.cache.requests", "result", "coalesced");
+        FunctionCounter.builder("search.cache.evictions", cache, c -> c.synchronous().stats().evictionCount())
+                .description("Entries evicted for size or expiry")
+                .register(meterRegistry);
+        Gauge.builder("search.cache.weight", cache,
+                        c -> c.synchronous().policy().eviction().map(e -> e.weightedSize().orElse(0L)).orElse(0L))
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("search.cache.size", cache, c -> c.synchronous().estimatedSize())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached result for {@code key}, or computes it with {@code search}. If
+     * an identical search is already running, waits for that one instead.
+     */
+    public Map<String, Object> get(ProductSearchRequest key, Supplier<Map<String, Object>> search) {
+        if (!enabled) {
+            return search.get();
+        }
+
+        long started = System.nanoTime();
+        CompletableFuture<Map<String, Object>> created = new CompletableFuture<>();
+        CompletableFuture<Map<String, Object>> existing = cache.asMap().putIfAbsent(key, created);
+        if (existing != null) {
+            boolean hit = existing.isDone();
+            (hit ? hits : coalesced).increment();
+            try {
+                Map<String, Object> result = existing.join();
+                return hit ? asHit(result, started) : result;
+            } catch (CompletionException e) {
+                // The leading request failed; run our own rather than share its failure.
+                return search.get();
+            }
+        }
+
+        misses.increment();
+        try {
+            Map<String, Object> result = Collections.unmodifiableMap(search.get());
+            created.complete(result);
+            if (!isCacheable(result)) {
+                cache.asMap().remove(key, created);
+            }
+            return result;
+        } catch (RuntimeException e) {
+            cache.asMap().remove(key, created);
+            created.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /** Drops every entry; called whenever the indexed data changes. */
+    public void invalidateAll(String reason) {
+        if (!enabled) {
+            return;
+        }
+        pendingInvalidation.set(null);
+        cache.synchronous().invalidateAll();
+        log.fine("🧹 Search cache cleared: " + reason);
+    }
+
+    /**
+     * Drops every entry on the next invalidation tick. Changes arriving within one
+     * interval share a single clear, so cached pages stay stale for at most that long.
+     */
+    public void invalidateSoon(String reason) {
+        if (enabled) {
+            pendingInvalidation.set(reason);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${search.cache.invalidate-interval-ms:5000}")
+    public void flushPendingInvalidation() {
+        String reason = pendingInvalidation.getAndSet(null);
+        if (reason != null) {
+            invalidateAll(reason);
+        }
+    }
+
+    private static Map<String, Object> asHit(Map<String, Object> result, long startedNanos) {
+        Map<String, Object> hit = new HashMap<>(result);
+        BACKEND_TIMES.forEach(hit::remove);
+        hit.put("cached", true);
+        hit.put("cacheLookupTime", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos));
+        return hit;
+    }
+
+    private static boolean isCacheable(Map<String, Object> result) {
+        return !result.containsKey("error")
+                && !result.containsKey("indexWarming")
+                && !result.containsKey("elasticUnavailable")
+                && !result.containsKey("traditionalIncomplete")
+                && !result.containsKey("elasticIncomplete")
+                && !result.containsKey("luceneIncomplete")
+                && !result.containsKey("luceneFallback")
+                && !holdsPointInTime(result.get("elasticNextCursor"));
+    }
+
+    private static boolean holdsPointInTime(Object cursor) {
+        SearchCursor decoded = cursor instanceof String token ? SearchCursor.decode(token) : null;
+        return decoded != null && decoded.pointInTimeId() != null;
+    }
+
+    private static int weigh(ProductSearchRequest key, Map<String, Object> value) {
+        long bytes = ENTRY_OVERHEAD_BYTES
+                + (key.query() == null ? 0 : 2L * key.query().length())
+                + (key.cursor() == null ? 0 : 2L * key.cursor().length());
+        for (Object entry : value.values()) {
+            if (entry instanceof Collection<?> items) {
+                for (Object item : items) {
+                    if (item instanceof ProductView view) {
+                        bytes += weigh(view);
+                    } else if (item instanceof Product product) {
+                        bytes += ProductReindexPipeline.estimateBytes(product) * 2;
+                    }
+                }
+            }
+        }
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    // Record header and boxed fields, plus two bytes per character of the strings
+    private static long weigh(ProductView view) {
+        return 96 + 2L * (length(view.name()) + length(view.description()) + length(view.category()));
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
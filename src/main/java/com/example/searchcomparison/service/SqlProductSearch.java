@@ -0,0 +1,62 @@
+package com.example.searchcomparison.service;
+
+import com.example.searchcomparison.model.Product;
+import com.example.searchcomparison.model.ProductSearchRequest;
+import com.example.searchcomparison.model.ProductView;
+import com.example.searchcomparison.repository.ProductRepository;
+import com.example.searchcomparison.repository.ProductSpecifications;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Picks the {@link ProductRepository} query that answers the SQL leg of a search, for
+ * the configured {@link SqlSearchMode} and {@link ReadMode}. The benchmark load driver
+ * runs the same class, so it measures the statements the application issues.
+ */
+public class SqlProductSearch {
+
+    private final ProductRepository productRepository;
+    private final SqlSearchMode sqlMode;
+    private final ReadMode readMode;
+
+    public SqlProductSearch(ProductRepository productRepository, SqlSearchMode sqlMode, ReadMode readMode) {
+        this.productRepository = productRepository;
+        this.sqlMode = sqlMode;
+        this.readMode = readMode;
+    }
+
+    public Page<ProductView> search(ProductSearchRequest request, Pageable pageable) {
+        if (readMode == ReadMode.ENTITY) {
+            return searchEntities(request, pageable).map(ProductView::of);
+        }
+        if (sqlMode == SqlSearchMode.OPTIMIZED) {
+            if (!request.strict() && request.hasText()) {
+                return productRepository.searchFullTextSummaries(request.query(), request.category(),
+                    request.minPrice(), request.maxPrice(), pageable).map(ProductView::of);
+            }
+            return request.hasFilters()
+                ? productRepository.findViews(ProductSpecifications.matching(request, true), pageable)
+                : productRepository.searchExactProductViewsIndexed(request.query(), pageable);
+        }
+        return request.hasFilters()
+            ? productRepository.findViews(ProductSpecifications.matching(request), pageable)
+            : productRepository.searchExactProductViews(request.query(), pageable);
+    }
+
+    private Page<Product> searchEntities(ProductSearchRequest request, Pageable pageable) {
+        if (sqlMode == SqlSearchMode.OPTIMIZED) {
+            if (!request.strict() && request.hasText()) {
+                return productRepository.searchFullText(request.query(), request.category(),
+                    request.minPrice(), request.maxPrice(), pageable);
+            }
+            return request.hasFilters()
+                ? productRepository.findAll(ProductSpecifications.matching(request, true), pageable)
+                : productRepository.searchExactProductsIndexed(request.query(), pageable);
+        }
+        if (!request.hasFilters()) {
+            return productRepository.searchExactProducts(request.query(), pageable);
+        }
+        // Filters become plain column predicates that the (category, price) index can serve.
+        return productRepository.findAll(ProductSpecifications.matching(request), pageable);
+    }
+}
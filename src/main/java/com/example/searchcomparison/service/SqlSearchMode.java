@@ -0,0 +1,14 @@
+package com.example.searchcomparison.service;
+
+/**
+ * How the SQL leg answers a search.
+ *
+ * <ul>
+ *   <li>{@code LEGACY}: the original {@code LOWER(name) = LOWER(:query)} lookup, which
+ *   cannot use an index and scans the table.</li>
+ *   <li>{@code OPTIMIZED}: exact matches compare the bare column through
+ *   {@code idx_products_name}; fuzzy searches use {@code MATCH ... AGAINST} over a
+ *   FULLTEXT index on name and description.</li>
+ * </ul>
+ */
+public enum SqlSearchMode { LEGACY, OPTIMIZED }
@@ -0,0 +1,97 @@
+package com.example.searchcomparison.service;
+
+import com.example.searchcomparison.model.ProductSource;
+import com.example.searchcomparison.model.ProductView;
+import com.example.searchcomparison.model.Suggestion;
+import co.elastic.clients.elasticsearch._types.query_dsl.Operator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilter;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Search-as-you-type backed by the {@code name.autocomplete} edge n-gram subfield. Each
+ * keystroke is a small match query on pre-computed prefixes that fetches only the
+ * fields a suggestion needs and skips hit counting. Hits are read as lean
+ * {@link ProductSource}s through {@link ProductHitMapper}, like search results.
+ */
+@Service
+public class SuggestionService {
+
+    private static final Logger log = Logger.getLogger(SuggestionService.class.getName());
+    private static final String[] SUGGESTION_FIELDS = {"name", "category"};
+
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final IndexReadiness indexReadiness;
+    private final ElasticsearchCircuitBreaker circuitBreaker;
+    private final ProductHitMapper productHitMapper;
+
+    @Value("${suggest.max-size:10}")
+    private int maxSize;
+
+    @Autowired
+    public SuggestionService(ElasticsearchOperations elasticsearchOperations, IndexReadiness indexReadiness,
+                             ElasticsearchCircuitBreaker circuitBreaker, ProductHitMapper productHitMapper) {
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.indexReadiness = indexReadiness;
+        this.circuitBreaker = circuitBreaker;
+        this.productHitMapper = productHitMapper;
+    }
+
+    public List<Suggestion> suggest(String prefix, int size) {
+        // Suggestions are best effort: skip them while the cluster is known to be unhealthy
+        if (prefix == null || prefix.isBlank() || !indexReadiness.isReady() || circuitBreaker.isOpen()) {
+            return Collections.emptyList();
+        }
+        int limit = Math.max(1, Math.min(size, maxSize));
+        String text = prefix.trim();
+
+        NativeQuery query = NativeQuery.builder()
+            .withQuery(q -> q.match(m -> m
+                .field("name.autocomplete")
+                .query(text)
+                .operator(Operator.And)))
+            .withSourceFilter(new FetchSourceFilter(SUGGESTION_FIELDS, null))
+            .withTrackTotalHits(false)
+            .withRequestCache(true)
+            // Over-fetch a little so duplicate names can be collapsed
+            .withPageable(PageRequest.of(0, limit * 2))
+            .build();
+
+        try {
+            SearchHits<ProductSource> hits = elasticsearchOperations.search(query, ProductSource.class,
+                IndexCoordinates.of(ProductService.INDEX_NAME));
+            List<Suggestion> suggestions = new ArrayList<>(limit);
+            Set<String> seenNames = new HashSet<>();
+            for (SearchHit<ProductSource> hit : hits) {
+                ProductView view = productHitMapper.toView(hit);
+                if (view == null || view.name() == null || !seenNames.add(view.name().toLowerCase(Locale.ROOT))) {
+                    continue;
+                }
+                suggestions.add(new Suggestion(view.id(), view.name(), view.category()));
+                if (suggestions.size() == limit) {
+                    break;
+                }
+            }
+            return suggestions;
+        } catch (Exception e) {
+            log.log(Level.FINE, "Suggestion lookup failed for prefix: " + text, e);
+            return Collections.emptyList();
+        }
+    }
+}